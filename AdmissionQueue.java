@@ -0,0 +1,509 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     AdmissionQueue.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Bounded line of clients waiting for a free client
+//				   handler. Instead of being turned away the moment the
+//				   server is full, a client waits here and is told its
+//				   place in line and about how long it has to wait. It is
+//				   only turned away if the line is full or it waits
+//				   longer than the longest wait. Messages to the waiting
+//				   clients are written without holding the line, so one
+//				   slow client never holds up the rest of the server.
+//				   Each client has its own write lock, and its place is
+//				   worked out under it as the message is written, so a
+//				   client never gets a place after it is let in.
+//
+//
+//******************************************************************************
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AdmissionQueue
+{
+	private final String queuedMarker = "q"; // starts a place in line message, "q<place>,<seconds>", place 0 when let in
+	private final String fullMessage = "xServer is full, please try again later";
+	private final double intervalWeight = 0.25; // weight of the newest interval in the average
+	
+	private int depth; // most clients that can wait
+	private long maxWaitMillis; // longest a client waits before it is turned away
+	private ArrayDeque<Socket> clients; // waiting clients, first in line first
+	private HashMap<Socket, ReentrantLock> writeLocks; // held while writing to a waiting client, taken before the line
+	private ScheduledExecutorService expiryTimer;
+	private ServerMetrics metrics; // counts the clients turned away
+	
+	private long lastReleaseTime; // when a client handler was last freed, 0 until one is
+	private double releaseInterval; // average nanoseconds between freed client handlers, 0 until known
+	
+	
+	public AdmissionQueue(int depth, long maxWaitMillis, ServerMetrics metrics)
+	{
+		this.depth = depth;
+		this.maxWaitMillis = maxWaitMillis;
+		this.metrics = metrics;
+		clients = new ArrayDeque<Socket>(depth);
+		writeLocks = new HashMap<Socket, ReentrantLock>();
+		expiryTimer = Executors.newSingleThreadScheduledExecutor(task ->
+		{
+			Thread thread = new Thread(task, "admission-expiry");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Offer
+	//
+	// Description: puts a client at the end of the line and tells it its
+	//				place, unless the line is full
+	//
+	// Parameters: Socket: the client
+	//
+	// Returns: boolean: true if the client is waiting, false if the
+	//			line is full and the client should be turned away
+	//
+	// **************************************************************
+	public boolean Offer(Socket socket)
+	{
+		ArrayList<Socket> waiting = new ArrayList<Socket>();
+		synchronized(this)
+		{
+			if (clients.size() >= depth)
+			{
+				return false;
+			}
+			
+			clients.addLast(socket);
+			writeLocks.put(socket, new ReentrantLock());
+			waiting.add(socket);
+			
+			// turn the client away if it is still waiting after the longest wait
+			expiryTimer.schedule(() -> Expire(socket), maxWaitMillis, TimeUnit.MILLISECONDS);
+		}
+		
+		Deliver(waiting);
+		return true;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Poll
+	//
+	// Description: takes the first client in line that is still
+	//				connected and tells the rest their new places. The 
+	//				client is told it is being let in, place 0, and if 
+	//				that can't be written it has left and the next 
+	//				client gets the place instead. Place messages 
+	//				already being written to the client finish first, 
+	//				none are written after it.
+	//
+	// Parameters: None
+	//
+	// Returns: Socket: the client, null if no client is waiting
+	//
+	// **************************************************************
+	public Socket Poll()
+	{
+		while (true)
+		{
+			Socket socket;
+			ReentrantLock writeLock;
+			String letInMessage;
+			ArrayList<Socket> waiting;
+			synchronized(this)
+			{
+				socket = clients.pollFirst();
+				while (socket != null && socket.isClosed())
+				{
+					writeLocks.remove(socket);
+					socket = clients.pollFirst();
+				}
+				
+				if (socket == null)
+				{
+					return null;
+				}
+				writeLock = writeLocks.remove(socket);
+				letInMessage = PlaceMessage(0);
+				waiting = new ArrayList<Socket>(clients);
+			}
+			
+			if (Send(socket, writeLock, letInMessage))
+			{
+				Deliver(waiting);
+				return socket;
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsEmpty
+	//
+	// Description: checks if no client is waiting
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true if the line is empty
+	//
+	// **************************************************************
+	public synchronized boolean IsEmpty()
+	{
+		return clients.isEmpty();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetSize
+	//
+	// Description: gets the number of waiting clients
+	//
+	// Parameters: None
+	//
+	// Returns: int: the clients in line
+	//
+	// **************************************************************
+	public synchronized int GetSize()
+	{
+		return clients.size();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SlotReleased
+	//
+	// Description: called when a client handler is freed, keeps a
+	//				moving average of the time between freed handlers
+	//				to estimate how long each place in line waits
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public synchronized void SlotReleased()
+	{
+		long now = System.nanoTime();
+		if (lastReleaseTime != 0)
+		{
+			long interval = now - lastReleaseTime;
+			releaseInterval = releaseInterval == 0 ? interval : releaseInterval + intervalWeight * (interval - releaseInterval);
+		}
+		lastReleaseTime = now;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Expire
+	//
+	// Description: turns a client away if it is still in line
+	//
+	// Parameters: Socket: the client
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void Expire(Socket socket)
+	{
+		ReentrantLock writeLock;
+		ArrayList<Socket> waiting;
+		synchronized(this)
+		{
+			// the client was let in or left already
+			if (!clients.remove(socket))
+			{
+				return;
+			}
+			writeLock = writeLocks.remove(socket);
+			waiting = new ArrayList<Socket>(clients);
+		}
+		
+		metrics.ConnectionRejected();
+		Send(socket, writeLock, fullMessage);
+		CloseClient(socket);
+		Deliver(waiting);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PlaceOf
+	//
+	// Description: finds a client's place in line. Called while holding 
+	//				the line.
+	//
+	// Parameters: Socket: the client
+	//
+	// Returns: int: the place in line, from 1, 0 if the client is no 
+	//			longer waiting
+	//
+	// **************************************************************
+	private int PlaceOf(Socket socket)
+	{
+		int place = 1;
+		for (Socket waiting : clients)
+		{
+			if (waiting == socket)
+			{
+				return place;
+			}
+			place++;
+		}
+		return 0;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PlaceMessage
+	//
+	// Description: makes the message telling a waiting client its place 
+	//				in line and the seconds it should wait, -1 until the 
+	//				time between freed client handlers is known. Called 
+	//				while holding the line.
+	//
+	// Parameters: int: the place in line, from 1
+	//
+	// Returns: String: the message
+	//
+	// **************************************************************
+	private String PlaceMessage(int place)
+	{
+		long seconds = releaseInterval == 0 ? -1 : Math.round(place * releaseInterval / 1e9);
+		return queuedMarker + place + "," + seconds;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Deliver
+	//
+	// Description: tells waiting clients their places without holding 
+	//				the line. A client whose place can't be written has 
+	//				left, it is dropped from the line and the clients 
+	//				still waiting are sent their new places.
+	//
+	// Parameters: ArrayList: the clients to tell
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void Deliver(ArrayList<Socket> waiting)
+	{
+		while (!waiting.isEmpty())
+		{
+			boolean dropped = false;
+			for (Socket socket : waiting)
+			{
+				if (!SendPlace(socket))
+				{
+					synchronized(this)
+					{
+						writeLocks.remove(socket);
+						dropped |= clients.remove(socket);
+					}
+				}
+			}
+			
+			waiting = new ArrayList<Socket>();
+			if (dropped)
+			{
+				synchronized(this)
+				{
+					waiting.addAll(clients);
+				}
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendPlace
+	//
+	// Description: sends a waiting client its place in line. The place 
+	//				is worked out under the client's write lock as it is 
+	//				written, so a client that moved up, was let in or was 
+	//				turned away meanwhile never gets an old place.
+	//
+	// Parameters: Socket: the client
+	//
+	// Returns: boolean: false if the place couldn't be written, true if 
+	//			it was or the client is no longer waiting
+	//
+	// **************************************************************
+	private boolean SendPlace(Socket socket)
+	{
+		ReentrantLock writeLock;
+		synchronized(this)
+		{
+			writeLock = writeLocks.get(socket);
+		}
+		if (writeLock == null)
+		{
+			return true;
+		}
+		
+		writeLock.lock();
+		try
+		{
+			String message;
+			synchronized(this)
+			{
+				int place = PlaceOf(socket);
+				if (place == 0)
+				{
+					return true;
+				}
+				message = PlaceMessage(place);
+			}
+			return Send(socket, message);
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Send
+	//
+	// Description: sends a message to a client leaving the line, after 
+	//				any place message being written to it
+	//
+	// Parameters: Socket: the client
+	//			   ReentrantLock: the client's write lock
+	//			   String: the message
+	//
+	// Returns: boolean: true if the message was sent
+	//
+	// **************************************************************
+	private boolean Send(Socket socket, ReentrantLock writeLock, String message)
+	{
+		writeLock.lock();
+		try
+		{
+			return Send(socket, message);
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Send
+	//
+	// Description: sends a message to a waiting client, closing it if
+	//				the message can't be sent. Called with the client's 
+	//				write lock held.
+	//
+	// Parameters: Socket: the client
+	//			   String: the message
+	//
+	// Returns: boolean: true if the message was sent
+	//
+	// **************************************************************
+	private boolean Send(Socket socket, String message)
+	{
+		try
+		{
+			new DataOutputStream(socket.getOutputStream()).writeUTF(message);
+			return true;
+		}
+		catch (IOException e)
+		{
+			// the client left while waiting, not an error
+			CloseClient(socket);
+			return false;
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CloseClient
+	//
+	// Description: closes a waiting client's connection
+	//
+	// Parameters: Socket: the client
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void CloseClient(Socket socket)
+	{
+		try
+		{
+			socket.close();
+		}
+		catch (IOException e)
+		{
+			System.err.printf("IO Error while closing waiting client on port %d.\n", socket.getPort());
+			e.printStackTrace();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: turns every waiting client away and stops the
+	//				expiry timer
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close()
+	{
+		ArrayList<Socket> waiting;
+		HashMap<Socket, ReentrantLock> waitingLocks;
+		synchronized(this)
+		{
+			expiryTimer.shutdownNow();
+			waiting = new ArrayList<Socket>(clients);
+			waitingLocks = writeLocks;
+			writeLocks = new HashMap<Socket, ReentrantLock>();
+			clients.clear();
+		}
+		
+		for (Socket socket : waiting)
+		{
+			Send(socket, waitingLocks.get(socket), fullMessage);
+			CloseClient(socket);
+		}
+	}
+}
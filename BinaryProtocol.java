@@ -0,0 +1,408 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     BinaryProtocol.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Frames of the binary reply protocol, shared by the 
+//				   server and client. Each frame is a 4 byte length, a 
+//				   1 byte type and the frame's data. Primes are sent as 
+//				   varint encoded gaps from the prime before them.
+//
+//
+//******************************************************************************
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class BinaryProtocol
+{
+	// frame types
+	public static final byte messageFrame = 'M'; // UTF-8 message, ends the reply
+	public static final byte statisticsFrame = 'S'; // sum, mean and standard deviation as doubles
+	public static final byte primesFrame = 'P'; // varint gaps between primes
+	public static final byte endFrame = 'E'; // end of the reply
+	public static final byte countFrame = 'C'; // number of primes as a long, ends the reply
+	public static final byte cursorFrame = 'N'; // UTF-8 cursor of the next page (empty if none), ends the reply
+	public static final byte tagFrame = 'T'; // UTF-8 tag of a pipelined request, its whole reply follows
+	public static final byte partialFrame = 'U'; // last integer covered as a long, the deadline cut the reply short
+	
+	// largest amount of prime data to put in one frame
+	private static final int maxPrimesFrameSize = 32768;
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteMessage
+	//
+	// Description: writes a message frame
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   String: the message
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WriteMessage(DataOutputStream out, String message) throws IOException
+	{
+		WriteFrame(out, messageFrame, message.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteStatistics
+	//
+	// Description: writes a statistics frame
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   double: sum
+	//			   double: mean
+	//			   double: standard deviation
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WriteStatistics(DataOutputStream out, double sum, double mean, double stdev) throws IOException
+	{
+		ByteBuffer data = ByteBuffer.allocate(24);
+		data.putDouble(sum).putDouble(mean).putDouble(stdev);
+		WriteFrame(out, statisticsFrame, data.array());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteCount
+	//
+	// Description: writes a count frame
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   long: number of primes
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WriteCount(DataOutputStream out, long count) throws IOException
+	{
+		WriteFrame(out, countFrame, ByteBuffer.allocate(8).putLong(count).array());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WritePartial
+	//
+	// Description: writes a partial frame, the answers after it only
+	//				cover the range up to the given integer
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   long: last integer of the range the answers cover
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WritePartial(DataOutputStream out, long end) throws IOException
+	{
+		WriteFrame(out, partialFrame, ByteBuffer.allocate(8).putLong(end).array());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteCursor
+	//
+	// Description: writes a cursor frame
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   String: cursor of the next page, empty if none
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WriteCursor(DataOutputStream out, String cursor) throws IOException
+	{
+		WriteFrame(out, cursorFrame, cursor.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteTag
+	//
+	// Description: writes a tag frame
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   String: tag of the pipelined request
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WriteTag(DataOutputStream out, String tag) throws IOException
+	{
+		WriteFrame(out, tagFrame, tag.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WritePrimes
+	//
+	// Description: writes a list of primes as one or more primes frames
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   long array: the primes
+	//			   int: index of the first prime to write
+	//			   int: index after the last prime to write
+	//			   long: the prime sent before these (0 if none)
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WritePrimes(DataOutputStream out, long[] primes, int from, int to, long previous) throws IOException
+	{
+		ByteArrayOutputStream data = new ByteArrayOutputStream(Math.min(maxPrimesFrameSize + 5, (to - from) * 2 + 5));
+		
+		for (int i = from; i < to; i++)
+		{
+			// unsigned varint, 7 bits at a time with the high bit 
+			// set on every byte but the last
+			long gap = primes[i] - previous;
+			while ((gap & ~0x7FL) != 0)
+			{
+				data.write((int)(gap & 0x7F) | 0x80);
+				gap >>>= 7;
+			}
+			data.write((int)gap);
+			previous = primes[i];
+			
+			if (data.size() >= maxPrimesFrameSize)
+			{
+				WriteFrame(out, primesFrame, data.toByteArray());
+				data.reset();
+			}
+		}
+		
+		if (data.size() > 0)
+		{
+			WriteFrame(out, primesFrame, data.toByteArray());
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteEnd
+	//
+	// Description: writes an end of reply frame
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void WriteEnd(DataOutputStream out) throws IOException
+	{
+		WriteFrame(out, endFrame, new byte[0]);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteFrame
+	//
+	// Description: writes one frame with a single write call. Threads 
+	//				sharing a stream hold their own lock around the frames 
+	//				of a message, so frames never interleave.
+	//
+	// Parameters: DataOutputStream: stream to write to
+	//			   byte: frame type
+	//			   byte array: frame data
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private static void WriteFrame(DataOutputStream out, byte type, byte[] data) throws IOException
+	{
+		ByteBuffer frame = ByteBuffer.allocate(5 + data.length);
+		frame.putInt(1 + data.length).put(type).put(data);
+		
+		out.write(frame.array());
+		out.flush();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadFrame
+	//
+	// Description: reads one frame
+	//
+	// Parameters: DataInputStream: stream to read from
+	//
+	// Returns: byte array: the frame type followed by its data
+	//
+	// **************************************************************
+	public static byte[] ReadFrame(DataInputStream in) throws IOException
+	{
+		byte[] frame = new byte[in.readInt()];
+		in.readFully(frame);
+		return frame;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadMessage
+	//
+	// Description: gets the message of a message frame
+	//
+	// Parameters: byte array: the frame
+	//
+	// Returns: String: the message
+	//
+	// **************************************************************
+	public static String ReadMessage(byte[] frame)
+	{
+		return new String(frame, 1, frame.length - 1, StandardCharsets.UTF_8);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadStatistics
+	//
+	// Description: gets the sum, mean and standard deviation of a 
+	//				statistics frame
+	//
+	// Parameters: byte array: the frame
+	//
+	// Returns: double array: sum, mean and standard deviation
+	//
+	// **************************************************************
+	public static double[] ReadStatistics(byte[] frame)
+	{
+		ByteBuffer data = ByteBuffer.wrap(frame, 1, 24);
+		return new double[] { data.getDouble(), data.getDouble(), data.getDouble() };
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadCount
+	//
+	// Description: gets the number of primes of a count frame
+	//
+	// Parameters: byte array: the frame
+	//
+	// Returns: long: number of primes
+	//
+	// **************************************************************
+	public static long ReadCount(byte[] frame)
+	{
+		return ByteBuffer.wrap(frame, 1, 8).getLong();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadPartial
+	//
+	// Description: gets the last integer covered from a partial frame
+	//
+	// Parameters: byte array: the frame
+	//
+	// Returns: long: last integer of the range the answers cover
+	//
+	// **************************************************************
+	public static long ReadPartial(byte[] frame)
+	{
+		return ByteBuffer.wrap(frame, 1, 8).getLong();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadCursor
+	//
+	// Description: gets the cursor of a cursor frame
+	//
+	// Parameters: byte array: the frame
+	//
+	// Returns: String: cursor of the next page, empty if none
+	//
+	// **************************************************************
+	public static String ReadCursor(byte[] frame)
+	{
+		return new String(frame, 1, frame.length - 1, StandardCharsets.UTF_8);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadTag
+	//
+	// Description: gets the tag of a tag frame
+	//
+	// Parameters: byte array: the frame
+	//
+	// Returns: String: tag of the pipelined request
+	//
+	// **************************************************************
+	public static String ReadTag(byte[] frame)
+	{
+		return new String(frame, 1, frame.length - 1, StandardCharsets.UTF_8);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadPrimes
+	//
+	// Description: decodes the primes of a primes frame
+	//
+	// Parameters: byte array: the frame
+	//			   long: the prime before the frame (0 if none)
+	//
+	// Returns: long array: the primes in the frame
+	//
+	// **************************************************************
+	public static long[] ReadPrimes(byte[] frame, long previous)
+	{
+		// every prime takes at least one byte
+		long[] primes = new long[frame.length - 1];
+		int primeCount = 0;
+		
+		long gap = 0;
+		int shift = 0;
+		for (int i = 1; i < frame.length; i++)
+		{
+			gap |= (long)(frame[i] & 0x7F) << shift;
+			shift += 7;
+			
+			// last byte of this varint
+			if ((frame[i] & 0x80) == 0)
+			{
+				previous += gap;
+				primes[primeCount++] = previous;
+				gap = 0;
+				shift = 0;
+			}
+		}
+		
+		return Arrays.copyOf(primes, primeCount);
+	}
+}
@@ -0,0 +1,255 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     FairScheduler.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Shares the calculation threads fairly between clients.
+//				   Each client's tasks wait in their own lane and the
+//				   lanes take turns, one task each, so a client with a
+//				   huge range can't make the small requests of other
+//				   clients wait behind all of its tasks. Up to one runner
+//				   per calculation thread takes the turns until no task
+//				   is waiting, so a client alone on the server still
+//				   uses every thread and nothing waits on the threads'
+//				   own queue. Tasks whose answer is no longer wanted are
+//				   dropped when their lane's turn comes.
+//
+//
+//******************************************************************************
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+public class FairScheduler
+{
+	private Executor workers; // the calculation threads
+	private HashMap<Object, ArrayDeque<QueuedTask>> lanes; // waiting tasks of each client that has any
+	private ArrayDeque<Object> turns; // clients with waiting tasks, in the order they are served
+	private int threads; // most runners taking turns at once
+	private int runners; // runners taking turns on the calculation threads
+	private int queuedTasks; // tasks waiting in every lane
+	private long completedTasks; // tasks the runners have finished
+	
+	// a task waiting in a lane, with the answer it completes
+	private static class QueuedTask
+	{
+		private Runnable task; // the task
+		private Future<?> result; // done once the answer is no longer wanted
+		
+		private QueuedTask(Runnable task, Future<?> result)
+		{
+			this.task = task;
+			this.result = result;
+		}
+	}
+	
+	
+	public FairScheduler(Executor workers, int threads)
+	{
+		this.workers = workers;
+		this.threads = threads;
+		lanes = new HashMap<Object, ArrayDeque<QueuedTask>>();
+		turns = new ArrayDeque<Object>();
+		runners = 0;
+		queuedTasks = 0;
+		completedTasks = 0;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Execute
+	//
+	// Description: puts a task at the end of a client's lane and starts
+	//				a runner if a calculation thread has none
+	//
+	// Parameters: Object: the client's lane, any object unique to the
+	//					   client
+	//			   Runnable: the task
+	//			   Future: the answer the task completes, the task is
+	//					   dropped if it is done before the task's turn
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Execute(Object lane, Runnable task, Future<?> result)
+	{
+		boolean startRunner;
+		synchronized(this)
+		{
+			ArrayDeque<QueuedTask> tasks = lanes.get(lane);
+			if (tasks == null)
+			{
+				// the client joins the end of the turns
+				tasks = new ArrayDeque<QueuedTask>();
+				lanes.put(lane, tasks);
+				turns.addLast(lane);
+			}
+			tasks.addLast(new QueuedTask(task, result));
+			queuedTasks++;
+			
+			startRunner = runners < threads;
+			if (startRunner)
+			{
+				runners++;
+			}
+		}
+		
+		if (startRunner)
+		{
+			try
+			{
+				workers.execute(this::RunTurns);
+			}
+			catch (RejectedExecutionException e)
+			{
+				// the server is closing, the task won't run
+				synchronized(this)
+				{
+					runners--;
+				}
+				throw e;
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetQueuedTasks
+	//
+	// Description: Gets how many tasks are waiting in the lanes
+	//
+	// Parameters: None
+	//
+	// Returns: int: the waiting tasks
+	//
+	// **************************************************************
+	public synchronized int GetQueuedTasks()
+	{
+		return queuedTasks;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetCompletedTasks
+	//
+	// Description: Gets how many tasks the runners have finished
+	//
+	// Parameters: None
+	//
+	// Returns: long: the finished tasks
+	//
+	// **************************************************************
+	public synchronized long GetCompletedTasks()
+	{
+		return completedTasks;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RunTurns
+	//
+	// Description: runs the first task of the client whose turn it is,
+	//				sending the client to the end of the turns if it has
+	//				more tasks waiting, until no client has any. Tasks
+	//				whose answer is done are dropped in the same turn,
+	//				so a client doesn't wait a turn for each of them.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void RunTurns()
+	{
+		boolean ranTask = false;
+		while (true)
+		{
+			Runnable task = null;
+			synchronized(this)
+			{
+				if (ranTask)
+				{
+					completedTasks++;
+				}
+				
+				while (task == null)
+				{
+					Object lane = turns.pollFirst();
+					if (lane == null)
+					{
+						runners--;
+						return;
+					}
+					task = TakeTask(lane);
+				}
+			}
+			
+			try
+			{
+				task.run();
+			}
+			catch (Throwable e)
+			{
+				// one task failing doesn't stop the runner
+				System.err.printf("%s while running a calculation task on thread %s.\n", e.toString(), Thread.currentThread().getName());
+				e.printStackTrace();
+			}
+			ranTask = true;
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: TakeTask
+	//
+	// Description: takes the first task of a client whose turn it is
+	//				that is still wanted, dropping the ones ahead of it
+	//				that aren't, and sends the client to the end of the
+	//				turns if it has more tasks waiting. Called with the
+	//				scheduler's lock held.
+	//
+	// Parameters: Object: the client's lane
+	//
+	// Returns: Runnable: the task, null if none of the client's tasks
+	//					  are still wanted
+	//
+	// **************************************************************
+	private Runnable TakeTask(Object lane)
+	{
+		ArrayDeque<QueuedTask> tasks = lanes.get(lane);
+		QueuedTask next = tasks.pollFirst();
+		queuedTasks--;
+		while (next.result.isDone() && !tasks.isEmpty())
+		{
+			next = tasks.pollFirst();
+			queuedTasks--;
+		}
+		
+		if (tasks.isEmpty())
+		{
+			lanes.remove(lane);
+		}
+		else
+		{
+			turns.addLast(lane);
+		}
+		return next.result.isDone() ? null : next.task;
+	}
+}
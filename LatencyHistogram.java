@@ -0,0 +1,240 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     LatencyHistogram.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Histogram of latencies for the load generator, in the
+//				   style of HdrHistogram. Every power of two is split
+//				   into 128 equal buckets, so any recorded value is known
+//				   to within 1% using a small fixed array, and values can
+//				   be recorded from many threads without locking. The
+//				   bucket counts and totals are striped, threads record
+//				   into the stripe their id picks and reads add up the
+//				   stripes, so threads recording at the same time don't
+//				   all fight over the same buckets.
+//
+//
+//******************************************************************************
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram
+{
+	private final int subBucketBits = 7; // 128 buckets per power of two
+	private final int subBucketCount = 1 << subBucketBits;
+	private final int maxStripes = 16; // each stripe is a full set of buckets, about 57 KB
+	
+	private AtomicLongArray[] stripes; // bucket counts, one set per stripe
+	private int stripeMask; // stripes.length - 1, the number of stripes is a power of two
+	private LongAdder totalCount;
+	private LongAdder totalValue;
+	private LongAccumulator maxValue;
+	
+	
+	public LatencyHistogram()
+	{
+		// about one stripe per core
+		int stripeCount = Math.min(maxStripes, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+		stripeMask = stripeCount - 1;
+		
+		// values below 2 * subBucketCount get their own bucket, then
+		// subBucketCount buckets for each power of two up to 2^63
+		stripes = new AtomicLongArray[stripeCount];
+		for (int stripe = 0; stripe < stripeCount; stripe++)
+		{
+			stripes[stripe] = new AtomicLongArray(2 * subBucketCount + (63 - subBucketBits - 1) * subBucketCount);
+		}
+		totalCount = new LongAdder();
+		totalValue = new LongAdder();
+		maxValue = new LongAccumulator(Math::max, 0);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Record
+	//
+	// Description: adds one value to the histogram
+	//
+	// Parameters: long: the value, negative values are recorded as 0
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Record(long value)
+	{
+		value = Math.max(0, value);
+		stripes[(int)Thread.currentThread().getId() & stripeMask].incrementAndGet(BucketIndex(value));
+		totalCount.increment();
+		totalValue.add(value);
+		maxValue.accumulate(value);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetValueAtPercentile
+	//
+	// Description: finds the value that the given percent of recorded
+	//				values are at or below
+	//
+	// Parameters: double: the percentile, 0 to 100
+	//
+	// Returns: long: the highest value of the bucket holding the
+	//			percentile (never more than the largest value recorded)
+	//
+	// **************************************************************
+	public long GetValueAtPercentile(double percentile)
+	{
+		long total = totalCount.sum();
+		if (total == 0)
+		{
+			return 0;
+		}
+		
+		long target = Math.max(1, (long)Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int index = 0; index < stripes[0].length(); index++)
+		{
+			for (int stripe = 0; stripe < stripes.length; stripe++)
+			{
+				seen += stripes[stripe].get(index);
+			}
+			if (seen >= target)
+			{
+				return Math.min(BucketHighestValue(index), maxValue.get());
+			}
+		}
+		
+		return maxValue.get();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetCount
+	//
+	// Description: gets the number of values recorded
+	//
+	// Parameters: None
+	//
+	// Returns: long: the number of values
+	//
+	// **************************************************************
+	public long GetCount()
+	{
+		return totalCount.sum();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetTotal
+	//
+	// Description: gets the sum of the values recorded
+	//
+	// Parameters: None
+	//
+	// Returns: long: the sum, 0 if none were recorded
+	//
+	// **************************************************************
+	public long GetTotal()
+	{
+		return totalValue.sum();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetMean
+	//
+	// Description: gets the mean of the values recorded
+	//
+	// Parameters: None
+	//
+	// Returns: double: the mean, 0 if none were recorded
+	//
+	// **************************************************************
+	public double GetMean()
+	{
+		long total = totalCount.sum();
+		return total == 0 ? 0 : (double)totalValue.sum() / total;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetMax
+	//
+	// Description: gets the largest value recorded
+	//
+	// Parameters: None
+	//
+	// Returns: long: the largest value, 0 if none were recorded
+	//
+	// **************************************************************
+	public long GetMax()
+	{
+		return maxValue.get();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: BucketIndex
+	//
+	// Description: finds the bucket a value is counted in
+	//
+	// Parameters: long: the value, not negative
+	//
+	// Returns: int: index of the bucket
+	//
+	// **************************************************************
+	private int BucketIndex(long value)
+	{
+		if (value < 2 * subBucketCount)
+		{
+			return (int)value;
+		}
+		
+		// keep the top subBucketBits + 1 bits of the value
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - subBucketBits;
+		int top = (int)(value >>> shift);
+		return 2 * subBucketCount + (shift - 1) * subBucketCount + (top - subBucketCount);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: BucketHighestValue
+	//
+	// Description: finds the largest value counted in a bucket
+	//
+	// Parameters: int: index of the bucket
+	//
+	// Returns: long: the largest value of the bucket
+	//
+	// **************************************************************
+	private long BucketHighestValue(int index)
+	{
+		if (index < 2 * subBucketCount)
+		{
+			return index;
+		}
+		
+		int shift = (index - 2 * subBucketCount) / subBucketCount + 1;
+		long top = subBucketCount + (index - 2 * subBucketCount) % subBucketCount;
+		return ((top + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,470 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     LoadGenerator.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Load generator for Project 5. Sends a mix of requests
+//				   to the server at a fixed rate over a pool of
+//				   connections, then reports throughput and latency
+//				   percentiles as text and as one line of JSON so runs
+//				   can be compared.
+//
+//				   Requests are sent on a fixed schedule and each latency
+//				   is timed from when the request was due to be sent, not
+//				   from when it was sent. A server that stalls makes every
+//				   request due during the stall count as slow, instead of
+//				   the stall holding back the requests that would show it
+//				   (coordinated omission).
+//
+//
+//******************************************************************************
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator
+{
+	private final String defaultMix = "primes:10000:6,stats:1000000:3,count:100000000:1";
+	private final double[] reportPercentiles = { 50, 90, 99, 99.9, 99.99 };
+	private final long drainTimeout = 60; // seconds to wait for the last replies
+	
+	// options
+	private String serverAddress = "127.0.0.1";
+	private int serverPort = 4301;
+	private int connectionCount = 4;
+	private double requestRate = 200; // requests per second
+	private double warmupSeconds = 2;
+	private double durationSeconds = 10;
+	private long maxFirst = 1000000000; // largest first integer of a range
+	private long seed = 4301;
+	private String label = "";
+	private String jsonFile = null; // null to print the JSON line instead
+	
+	// request mix, one entry per kind of request
+	private ArrayList<String> mixKinds = new ArrayList<String>();
+	private ArrayList<Integer> mixSizes = new ArrayList<Integer>();
+	private ArrayList<Integer> mixWeights = new ArrayList<Integer>();
+	private int totalWeight;
+	
+	// results, measured requests only
+	private LatencyHistogram allLatencies = new LatencyHistogram();
+	private ArrayList<LatencyHistogram> kindLatencies = new ArrayList<LatencyHistogram>();
+	private AtomicLong errorCount = new AtomicLong();
+	private AtomicLong outstanding = new AtomicLong();
+	
+	
+	// ***************************************************************
+	//
+	// Method: main
+	//
+	// Description: The main method of the load generator
+	//
+	// Parameters: String array: options, see Usage
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void main(String argvs[])
+	{
+		LoadGenerator generator = new LoadGenerator();
+		String mix = generator.defaultMix;
+		
+		try
+		{
+			for (int i = 0; i < argvs.length; i++)
+			{
+				if (argvs[i].equals("-address"))
+					generator.serverAddress = argvs[++i];
+				else if (argvs[i].equals("-port"))
+					generator.serverPort = Integer.parseInt(argvs[++i]);
+				else if (argvs[i].equals("-connections"))
+					generator.connectionCount = Integer.parseInt(argvs[++i]);
+				else if (argvs[i].equals("-rate"))
+					generator.requestRate = Double.parseDouble(argvs[++i]);
+				else if (argvs[i].equals("-warmup"))
+					generator.warmupSeconds = Double.parseDouble(argvs[++i]);
+				else if (argvs[i].equals("-duration"))
+					generator.durationSeconds = Double.parseDouble(argvs[++i]);
+				else if (argvs[i].equals("-max"))
+					generator.maxFirst = Long.parseLong(argvs[++i]);
+				else if (argvs[i].equals("-seed"))
+					generator.seed = Long.parseLong(argvs[++i]);
+				else if (argvs[i].equals("-mix"))
+					mix = argvs[++i];
+				else if (argvs[i].equals("-label"))
+					generator.label = argvs[++i];
+				else if (argvs[i].equals("-json"))
+					generator.jsonFile = argvs[++i];
+				else
+					throw new IllegalArgumentException("Unknown option " + argvs[i]);
+			}
+			
+			generator.ParseMix(mix);
+			if (generator.requestRate <= 0 || generator.durationSeconds <= 0 || generator.connectionCount <= 0)
+			{
+				throw new IllegalArgumentException("The rate, duration and connections must be greater than zero.");
+			}
+		}
+		catch (Exception e)
+		{
+			System.err.println(e.getMessage());
+			Usage();
+			return;
+		}
+		
+		generator.Run();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Usage
+	//
+	// Description: prints the load generator's options
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private static void Usage()
+	{
+		System.err.println(
+				"Usage: java LoadGenerator [options]\n"
+				+ "  -address A       server address (127.0.0.1)\n"
+				+ "  -port P          server port (4301)\n"
+				+ "  -connections N   connections to open (4)\n"
+				+ "  -rate R          requests per second (200)\n"
+				+ "  -warmup S        seconds to run before measuring (2)\n"
+				+ "  -duration S      seconds to measure (10)\n"
+				+ "  -mix M           kind:rangeSize:weight,... kinds are primes, stats and count\n"
+				+ "                   (primes:10000:6,stats:1000000:3,count:100000000:1)\n"
+				+ "  -max N           largest first integer of a range (1000000000)\n"
+				+ "  -seed N          seed for the ranges, the same seed sends the same requests (4301)\n"
+				+ "  -label L         name of the run in the JSON output\n"
+				+ "  -json F          file to append the JSON line to instead of printing it\n");
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ParseMix
+	//
+	// Description: parses the request mix option
+	//
+	// Parameters: String: kind:rangeSize:weight entries, comma separated
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void ParseMix(String mix)
+	{
+		String entries[] = mix.split(",");
+		for (int i = 0; i < entries.length; i++)
+		{
+			String fields[] = entries[i].trim().split(":");
+			if (fields.length != 3 || !(fields[0].equals("primes") || fields[0].equals("stats") || fields[0].equals("count")))
+			{
+				throw new IllegalArgumentException("Bad mix entry " + entries[i]);
+			}
+			
+			int size = Integer.parseInt(fields[1]);
+			int weight = Integer.parseInt(fields[2]);
+			if (size < 2 || weight <= 0)
+			{
+				throw new IllegalArgumentException("Bad mix entry " + entries[i]);
+			}
+			
+			mixKinds.add(fields[0]);
+			mixSizes.add(size);
+			mixWeights.add(weight);
+			kindLatencies.add(new LatencyHistogram());
+			totalWeight += weight;
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Run
+	//
+	// Description: connects, sends the requests on schedule, waits for
+	//				the last replies and reports the results
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void Run()
+	{
+		try (PrimeClient client = new PrimeClient(serverAddress, serverPort, connectionCount))
+		{
+			Random random = new Random(seed);
+			long interval = (long)(TimeUnit.SECONDS.toNanos(1) / requestRate);
+			long requestTotal = (long)((warmupSeconds + durationSeconds) * requestRate);
+			long warmupRequests = (long)(warmupSeconds * requestRate);
+			
+			System.out.printf("Sending %d requests at %.0f per second over %d connections (%d warmup).\n",
+					requestTotal, requestRate, connectionCount, warmupRequests);
+			
+			long start = System.nanoTime();
+			long measureStart = start + warmupRequests * interval;
+			for (long request = 0; request < requestTotal; request++)
+			{
+				// wait for the request's turn, if we are behind send it now
+				long dueTime = start + request * interval;
+				long wait;
+				while ((wait = dueTime - System.nanoTime()) > 0)
+				{
+					LockSupport.parkNanos(wait);
+				}
+				
+				int kind = PickKind(random);
+				int size = mixSizes.get(kind);
+				long first = 1 + random.nextLong(Math.max(1, Math.min(maxFirst, Long.MAX_VALUE / 2 - size)));
+				boolean measured = request >= warmupRequests;
+				
+				outstanding.incrementAndGet();
+				Send(client, mixKinds.get(kind), first, first + size - 1).whenComplete((result, e) ->
+				{
+					// timed from when the request was due, not when it was sent
+					long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueTime);
+					if (measured)
+					{
+						if (e != null)
+						{
+							errorCount.incrementAndGet();
+						}
+						else
+						{
+							allLatencies.Record(latency);
+							kindLatencies.get(kind).Record(latency);
+						}
+					}
+					outstanding.decrementAndGet();
+				});
+			}
+			
+			// wait for the replies still on their way
+			long drainEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainTimeout);
+			while (outstanding.get() > 0 && System.nanoTime() < drainEnd)
+			{
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+			}
+			double elapsed = (System.nanoTime() - measureStart) / 1e9;
+			
+			if (outstanding.get() > 0)
+			{
+				System.err.printf("%d requests were not answered within %d seconds.\n", outstanding.get(), drainTimeout);
+				errorCount.addAndGet(outstanding.get());
+			}
+			
+			Report(elapsed);
+		}
+		catch (IOException e)
+		{
+			System.err.printf("Could not connect to %s on port %d: %s\n", serverAddress, serverPort, e.getMessage());
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PickKind
+	//
+	// Description: picks the kind of the next request by its weight
+	//
+	// Parameters: Random: the run's random numbers
+	//
+	// Returns: int: index of the kind in the mix
+	//
+	// **************************************************************
+	private int PickKind(Random random)
+	{
+		int pick = random.nextInt(totalWeight);
+		int kind = 0;
+		while (pick >= mixWeights.get(kind))
+		{
+			pick -= mixWeights.get(kind);
+			kind++;
+		}
+		return kind;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Send
+	//
+	// Description: sends one request of the given kind
+	//
+	// Parameters:  PrimeClient: the connection pool
+	//				String: kind of request
+	//				long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: CompletableFuture: completes with the reply
+	//
+	// **************************************************************
+	private CompletableFuture<?> Send(PrimeClient client, String kind, long first, long second)
+	{
+		if (kind.equals("stats"))
+		{
+			return client.RangeStats(first, second);
+		}
+		if (kind.equals("count"))
+		{
+			return client.CountPrimes(first, second);
+		}
+		return client.Primes(first, second);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Report
+	//
+	// Description: prints the results, then prints or saves them as
+	//				one line of JSON
+	//
+	// Parameters: double: seconds from the first measured request to
+	//					   the last reply
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void Report(double elapsed)
+	{
+		long completed = allLatencies.GetCount();
+		double throughput = completed / elapsed;
+		
+		System.out.printf("\nCompleted: %d  Errors: %d  Throughput: %.1f requests/s\n", completed, errorCount.get(), throughput);
+		System.out.println("Latency in microseconds, timed from when each request was due:");
+		PrintLatencies("all", allLatencies);
+		for (int kind = 0; kind < mixKinds.size(); kind++)
+		{
+			PrintLatencies(mixKinds.get(kind) + ":" + mixSizes.get(kind), kindLatencies.get(kind));
+		}
+		
+		StringBuilder json = new StringBuilder();
+		json.append(String.format(Locale.ROOT,
+				"{\"label\":\"%s\",\"connections\":%d,\"rate\":%.1f,\"durationSeconds\":%.1f,\"seed\":%d,"
+				+ "\"completed\":%d,\"errors\":%d,\"throughput\":%.2f,\"latencyMicros\":",
+				label.replace("\\", "\\\\").replace("\"", "\\\""), connectionCount, requestRate, durationSeconds, seed,
+				completed, errorCount.get(), throughput));
+		AppendLatencies(json, allLatencies);
+		json.append(",\"kinds\":[");
+		for (int kind = 0; kind < mixKinds.size(); kind++)
+		{
+			json.append(kind == 0 ? "" : ",");
+			json.append(String.format("{\"kind\":\"%s\",\"rangeSize\":%d,\"weight\":%d,\"latencyMicros\":",
+					mixKinds.get(kind), mixSizes.get(kind), mixWeights.get(kind)));
+			AppendLatencies(json, kindLatencies.get(kind));
+			json.append("}");
+		}
+		json.append("]}");
+		
+		if (jsonFile == null)
+		{
+			System.out.println(json);
+			return;
+		}
+		
+		try (PrintWriter out = new PrintWriter(new FileWriter(jsonFile, true)))
+		{
+			out.println(json);
+		}
+		catch (IOException e)
+		{
+			System.err.printf("IO Error while writing results to %s.\n", jsonFile);
+			e.printStackTrace();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PrintLatencies
+	//
+	// Description: prints one row of the latency table
+	//
+	// Parameters:  String: name of the row
+	//				LatencyHistogram: the row's latencies
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void PrintLatencies(String name, LatencyHistogram latencies)
+	{
+		System.out.printf("  %-20s count %-8d mean %-10.0f", name, latencies.GetCount(), latencies.GetMean());
+		for (int i = 0; i < reportPercentiles.length; i++)
+		{
+			System.out.printf(" %s %-9d", PercentileName(reportPercentiles[i]), latencies.GetValueAtPercentile(reportPercentiles[i]));
+		}
+		System.out.printf(" max %d\n", latencies.GetMax());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AppendLatencies
+	//
+	// Description: adds a JSON object of a histogram's results
+	//
+	// Parameters:  StringBuilder: the JSON so far
+	//				LatencyHistogram: the latencies
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void AppendLatencies(StringBuilder json, LatencyHistogram latencies)
+	{
+		json.append(String.format(Locale.ROOT, "{\"count\":%d,\"mean\":%.1f", latencies.GetCount(), latencies.GetMean()));
+		for (int i = 0; i < reportPercentiles.length; i++)
+		{
+			json.append(String.format(",\"%s\":%d", PercentileName(reportPercentiles[i]), latencies.GetValueAtPercentile(reportPercentiles[i])));
+		}
+		json.append(String.format(",\"max\":%d}", latencies.GetMax()));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PercentileName
+	//
+	// Description: names a percentile the way latency tools do, 99.9
+	//				is p999
+	//
+	// Parameters: double: the percentile
+	//
+	// Returns: String: the name
+	//
+	// **************************************************************
+	private String PercentileName(double percentile)
+	{
+		String digits = Double.toString(percentile);
+		if (digits.endsWith(".0"))
+		{
+			digits = digits.substring(0, digits.length() - 2);
+		}
+		return "p" + digits.replace(".", "");
+	}
+}
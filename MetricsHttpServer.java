@@ -0,0 +1,379 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     MetricsHttpServer.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Small HTTP listener on a second port for monitoring.
+//				   GET /metrics gives the server's metrics in the
+//				   Prometheus text format and GET /ready answers 200 while
+//				   the server can take more work and 503 while its
+//				   calculation threads have too much work or clients wait
+//				   in line, so a load balancer can send clients elsewhere.
+//				   The JDK's HTTP server runs on one selector thread and
+//				   with no executor answers the requests on that thread
+//				   too, so monitoring never takes a calculation thread.
+//				   It listens on the address it is given, which the
+//				   server keeps to loopback unless told otherwise.
+//
+//
+//******************************************************************************
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class MetricsHttpServer
+{
+	private final String metricsPath = "/metrics";
+	private final String readyPath = "/ready";
+	private final String metricsContentType = "text/plain; version=0.0.4; charset=utf-8"; // Prometheus text format
+	private final String textContentType = "text/plain; charset=utf-8";
+	private final String metricPrefix = "project5_"; // starts the name of every metric
+	private final double[] quantiles = { 0.5, 0.9, 0.99 }; // quantiles of each phase's latency
+	
+	private Project5Server server;
+	private InetAddress address; // address to listen on
+	private int port;
+	private double maxReadyLoad; // highest calculation load the server is ready at
+	private HttpServer httpServer;
+	
+	
+	public MetricsHttpServer(Project5Server server, InetAddress address, int port, double maxReadyLoad)
+	{
+		this.server = server;
+		this.address = address;
+		this.port = port;
+		this.maxReadyLoad = maxReadyLoad;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Start
+	//
+	// Description: starts listening for monitoring requests
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Start() throws IOException
+	{
+		httpServer = HttpServer.create(new InetSocketAddress(address, port), 0);
+		httpServer.createContext(metricsPath, this::HandleMetrics);
+		httpServer.createContext(readyPath, this::HandleReady);
+		
+		// no executor, the listener's own thread answers
+		httpServer.setExecutor(null);
+		httpServer.start();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: stops listening, requests being answered are dropped
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close()
+	{
+		if (httpServer != null)
+		{
+			httpServer.stop(0);
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: HandleMetrics
+	//
+	// Description: answers a request for the metrics
+	//
+	// Parameters: HttpExchange: the request
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void HandleMetrics(HttpExchange exchange) throws IOException
+	{
+		if (CheckRequest(exchange, metricsPath))
+		{
+			Send(exchange, 200, metricsContentType, BuildMetrics());
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: HandleReady
+	//
+	// Description: answers a readiness check, 200 if the server can take
+	//				more work and 503 with the reason if it can't
+	//
+	// Parameters: HttpExchange: the request
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void HandleReady(HttpExchange exchange) throws IOException
+	{
+		if (CheckRequest(exchange, readyPath))
+		{
+			String reason = NotReadyReason();
+			if (reason == null)
+			{
+				Send(exchange, 200, textContentType, "ready\n");
+			}
+			else
+			{
+				Send(exchange, 503, textContentType, "not ready: " + reason + "\n");
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: NotReadyReason
+	//
+	// Description: checks if the server should be sent more clients. It
+	//				is not ready while its calculation load, the running
+	//				and waiting tasks per calculation thread, is above the
+	//				highest ready load, or while clients wait for a
+	//				client handler.
+	//
+	// Parameters: None
+	//
+	// Returns: String: why the server is not ready, null if it is ready
+	//
+	// **************************************************************
+	private String NotReadyReason()
+	{
+		PoolSaturation compute = server.GetComputeSaturation();
+		if (compute.GetLoad() > maxReadyLoad)
+		{
+			return String.format("calculation load %.2f is above %.2f", compute.GetLoad(), maxReadyLoad);
+		}
+		
+		int waitingClients = server.GetWaitingClientCount();
+		if (waitingClients > 0)
+		{
+			return waitingClients + " clients are waiting for a client handler";
+		}
+		return null;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: BuildMetrics
+	//
+	// Description: writes the server's metrics in the Prometheus text
+	//				format. Prometheus finds rates from the counters
+	//				itself, so only the totals are given.
+	//
+	// Parameters: None
+	//
+	// Returns: String: the metrics
+	//
+	// **************************************************************
+	private String BuildMetrics()
+	{
+		ServerMetrics metrics = server.GetMetrics();
+		PoolSaturation compute = server.GetComputeSaturation();
+		PoolSaturation clients = server.GetConnectionSaturation();
+		StringBuilder text = new StringBuilder();
+		
+		AppendMetric(text, "connected_clients", "gauge", "Clients connected to the server.", server.GetClientCount());
+		AppendMetric(text, "waiting_clients", "gauge", "Clients waiting in line for a free client handler.", server.GetWaitingClientCount());
+		AppendMetric(text, "rejected_connections_total", "counter", "Clients turned away because the server was full or they waited too long.", metrics.GetRejectedConnections());
+		AppendMetric(text, "compute_threads", "gauge", "Calculation threads.", compute.GetThreads());
+		AppendMetric(text, "compute_active_threads", "gauge", "Calculation threads running a task.", compute.GetActiveThreads());
+		AppendMetric(text, "compute_queued_tasks", "gauge", "Tasks waiting for a calculation thread.", compute.GetQueuedTasks());
+		AppendMetric(text, "compute_completed_tasks_total", "counter", "Tasks the calculation threads have finished.", compute.GetCompletedTasks());
+		AppendMetric(text, "compute_load", "gauge", "Running and waiting tasks per calculation thread.", compute.GetLoad());
+		AppendMetric(text, "client_threads", "gauge", "Client handlers.", clients.GetThreads());
+		AppendMetric(text, "client_active_threads", "gauge", "Client handlers serving a client.", clients.GetActiveThreads());
+		AppendMetric(text, "client_queued_tasks", "gauge", "Clients waiting for a client handler.", clients.GetQueuedTasks());
+		AppendMetric(text, "requests_total", "counter", "Requests received.", metrics.GetRequests());
+		AppendMetric(text, "primes_generated_total", "counter", "Primes found for clients.", metrics.GetPrimesGenerated());
+		AppendMetric(text, "ready", "gauge", "1 if the server is ready for more clients, 0 if not.", NotReadyReason() == null ? 1 : 0);
+		
+		// one summary for every phase of a request
+		String phaseName = metricPrefix + "request_phase_seconds";
+		text.append("# HELP ").append(phaseName).append(" Latency of each phase of a request.\n");
+		text.append("# TYPE ").append(phaseName).append(" summary\n");
+		AppendPhase(text, phaseName, "parse", metrics.GetParseLatency());
+		AppendPhase(text, phaseName, "compute", metrics.GetComputeLatency());
+		AppendPhase(text, phaseName, "stats", metrics.GetStatsLatency());
+		AppendPhase(text, phaseName, "send", metrics.GetSendLatency());
+		
+		return text.toString();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AppendMetric
+	//
+	// Description: writes one metric with its help and type lines
+	//
+	// Parameters: StringBuilder: the metrics being written
+	//			   String: the metric's name, without the prefix
+	//			   String: the metric's type, gauge or counter
+	//			   String: what the metric is
+	//			   double: the metric's value
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void AppendMetric(StringBuilder text, String name, String type, String help, double value)
+	{
+		text.append("# HELP ").append(metricPrefix).append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(metricPrefix).append(name).append(' ').append(type).append('\n');
+		text.append(metricPrefix).append(name).append(' ').append(FormatValue(value)).append('\n');
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AppendPhase
+	//
+	// Description: writes the quantiles, sum and count of one phase's
+	//				latency, converted from microseconds to seconds
+	//
+	// Parameters: StringBuilder: the metrics being written
+	//			   String: the summary's name
+	//			   String: the phase
+	//			   LatencyHistogram: the phase's latencies in microseconds
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void AppendPhase(StringBuilder text, String name, String phase, LatencyHistogram latency)
+	{
+		for (double quantile : quantiles)
+		{
+			text.append(name).append("{phase=\"").append(phase).append("\",quantile=\"").append(quantile).append("\"} ")
+					.append(FormatValue(latency.GetValueAtPercentile(quantile * 100) / 1e6)).append('\n');
+		}
+		text.append(name).append("_sum{phase=\"").append(phase).append("\"} ").append(FormatValue(latency.GetTotal() / 1e6)).append('\n');
+		text.append(name).append("_count{phase=\"").append(phase).append("\"} ").append(latency.GetCount()).append('\n');
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: FormatValue
+	//
+	// Description: writes a metric's value, whole numbers without a
+	//				decimal point
+	//
+	// Parameters: double: the value
+	//
+	// Returns: String: the value as Prometheus reads it
+	//
+	// **************************************************************
+	private String FormatValue(double value)
+	{
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+		{
+			return Long.toString((long)value);
+		}
+		return Double.toString(value);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CheckRequest
+	//
+	// Description: checks that a request is a GET or HEAD of exactly the
+	//				path, answering it with an error if it isn't
+	//
+	// Parameters: HttpExchange: the request
+	//			   String: the path it should ask for
+	//
+	// Returns: boolean: true if the request should be answered
+	//
+	// **************************************************************
+	private boolean CheckRequest(HttpExchange exchange, String path) throws IOException
+	{
+		// contexts match every path that starts with theirs
+		if (!exchange.getRequestURI().getPath().equals(path))
+		{
+			Send(exchange, 404, textContentType, "not found\n");
+			return false;
+		}
+		
+		String method = exchange.getRequestMethod();
+		if (!method.equals("GET") && !method.equals("HEAD"))
+		{
+			exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+			Send(exchange, 405, textContentType, "method not allowed\n");
+			return false;
+		}
+		return true;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Send
+	//
+	// Description: answers a request and closes the exchange
+	//
+	// Parameters: HttpExchange: the request
+	//			   int: the HTTP status code
+	//			   String: the content type
+	//			   String: the body
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void Send(HttpExchange exchange, int status, String contentType, String body) throws IOException
+	{
+		try
+		{
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", contentType);
+			
+			// HEAD gets the headers only
+			if (exchange.getRequestMethod().equals("HEAD"))
+			{
+				exchange.sendResponseHeaders(status, -1);
+			}
+			else
+			{
+				exchange.sendResponseHeaders(status, bytes.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(bytes);
+			}
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,503 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     NioClientConnection.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   One client connection of the non-blocking front end. 
+//				   Splits the bytes read from the channel into writeUTF 
+//				   frames, hands each request to a ServerClient one at a 
+//				   time, and queues the ServerClient's replies for the 
+//				   selector thread to write. The requests are answered on 
+//				   the client's reply lane, the selector thread only reads 
+//				   and writes. Once too many reply bytes are queued for a 
+//				   client the thread answering it waits and the client is 
+//				   no longer read from, until most of them are written.
+//
+//
+//******************************************************************************
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class NioClientConnection extends OutputStream
+{
+	private final String closeCommand = "Bye";
+	private final int maxFrameSize = 2 + 65535; // writeUTF length plus the largest string
+	private final long writeHighWater = 1024 * 1024; // queued reply bytes above which replies wait and requests stop being read
+	private final long writeLowWater = 256 * 1024; // queued reply bytes below which they carry on
+	
+	private NioServer nioServer; // selector thread that owns this connection
+	private SocketChannel channel;
+	private SelectionKey key;
+	private ServerClient serverClient;
+	
+	private ByteBuffer readBuffer;
+	private ConcurrentLinkedQueue<ByteBuffer> writeQueue;
+	private ConcurrentLinkedQueue<Long> writeQueueTimes; // when each queued buffer was queued, for the send latency
+	private ServerMetrics metrics;
+	private AtomicLong queuedBytes; // reply bytes queued and not yet written
+	private boolean readPaused; // selector thread only, true while too many reply bytes are queued
+	private ReentrantLock writeLock; // lets the threads writing replies wait for the queue to drain
+	private Condition writable; // signalled once the queued reply bytes are below the low water mark
+	private volatile int waitingWriters; // threads waiting on writable (changed under writeLock)
+	
+	// requests waiting for the one before them to finish (guarded by this)
+	private ArrayDeque<String> pendingInputs;
+	private boolean busy;
+	
+	private volatile boolean closing; // close once every reply is written
+	private volatile boolean closed;
+	
+	
+	public NioClientConnection(NioServer nioServer, SocketChannel channel, SelectionKey key, Project5Server server)
+	{
+		this.nioServer = nioServer;
+		this.channel = channel;
+		this.key = key;
+		
+		readBuffer = ByteBuffer.allocate(maxFrameSize);
+		writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+		writeQueueTimes = new ConcurrentLinkedQueue<Long>();
+		metrics = server.GetMetrics();
+		queuedBytes = new AtomicLong();
+		readPaused = false;
+		writeLock = new ReentrantLock();
+		writable = writeLock.newCondition();
+		waitingWriters = 0;
+		pendingInputs = new ArrayDeque<String>();
+		busy = false;
+		closing = false;
+		closed = false;
+		
+		serverClient = new ServerClient(channel.socket(), server, this);
+		
+		// send that we are fully connected to the client
+		serverClient.SendConnectionToken();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ReadFrames
+	//
+	// Description: Called by the selector thread when the channel has 
+	//				data. Reads what is there and handles every complete 
+	//				writeUTF frame.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void ReadFrames()
+	{
+		// the key may have been selected before reading was paused
+		if (readPaused)
+		{
+			return;
+		}
+		
+		try
+		{
+			if (channel.read(readBuffer) < 0)
+			{
+				// client closed its side
+				Close();
+				return;
+			}
+			
+			readBuffer.flip();
+			
+			// handle each complete frame, a 2 byte length then the string
+			while (readBuffer.remaining() >= 2)
+			{
+				int frameSize = 2 + (readBuffer.getShort(readBuffer.position()) & 0xFFFF);
+				if (readBuffer.remaining() < frameSize)
+				{
+					break;
+				}
+				
+				byte[] frame = new byte[frameSize];
+				readBuffer.get(frame);
+				HandleFrame(new DataInputStream(new ByteArrayInputStream(frame)).readUTF());
+			}
+			
+			readBuffer.compact();
+		}
+		catch (IOException e)
+		{
+			System.out.printf("Client on port %d disconnected unexpectedly. Closing the connection fully.\n", channel.socket().getPort());
+			Close();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: HandleFrame
+	//
+	// Description: starts a request, or queues it if the client's last 
+	//				request is still being handled so untagged answers 
+	//				stay in order. The cancel command is handled at once.
+	//
+	// Parameters: String: request from the client
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void HandleFrame(String input)
+	{
+		// cancelling can't wait for the requests before it
+		if (serverClient.IsCancelCommand(input))
+		{
+			serverClient.CancelTasks();
+			return;
+		}
+		
+		synchronized(this)
+		{
+			if (!closing)
+			{
+				pendingInputs.add(input);
+				if (!busy)
+				{
+					StartNext();
+				}
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: StartNext
+	//
+	// Description: starts the next queued request on the client's reply 
+	//				lane, nothing of it runs on the calling thread, so the 
+	//				selector thread only reads and writes. The computing 
+	//				runs on the server's worker pool. Must hold this 
+	//				object's lock.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void StartNext()
+	{
+		String input = pendingInputs.poll();
+		busy = input != null;
+		
+		if (input == null)
+		{
+			return;
+		}
+		
+		if (input.equals(closeCommand))
+		{
+			// answer any pipelined requests still running first, no 
+			// more requests are started while busy stays set. The send 
+			// may wait for the queue to drain, so it is not locked.
+			serverClient.WaitForPipelined().whenCompleteAsync((done, e) -> 
+			{
+				serverClient.SendData("xServer closing Connection.");
+				synchronized(this)
+				{
+					closing = true;
+					pendingInputs.clear();
+				}
+				nioServer.RequestWrite(this);
+			}, serverClient.GetReplyLane());
+			return;
+		}
+		
+		// tagged requests complete as soon as they are started, so the 
+		// next one can start while they are still running
+		CompletableFuture.supplyAsync(() -> serverClient.HandleRequest(input), serverClient.GetReplyLane())
+				.thenCompose(request -> request)
+				.whenComplete((done, e) -> 
+				{
+					synchronized(this)
+					{
+						StartNext();
+					}
+				});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: write
+	//
+	// Description: Called by the ServerClient to send data. The bytes are 
+	//				queued and the selector thread is asked to write them. 
+	//				The send latency is timed from here until the last of 
+	//				them is written. Once too many bytes are queued the 
+	//				calling thread waits for most of them to be written, 
+	//				so even a single wide reply is never queued whole.
+	//
+	// Parameters: byte array: data to send
+	//			   int: offset of the data
+	//			   int: length of the data
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException
+	{
+		// the selector thread only sends short messages and never waits, 
+		// it is the thread that empties the queue
+		if (queuedBytes.get() > writeHighWater && !nioServer.IsSelectorThread())
+		{
+			WaitForWrites();
+		}
+		
+		if (closed)
+		{
+			throw new IOException("Connection closed.");
+		}
+		
+		byte[] copy = new byte[length];
+		System.arraycopy(data, offset, copy, 0, length);
+		
+		// the time goes in first, so the selector thread never finds a 
+		// buffer without its time. The bytes are counted before the 
+		// buffer is queued so the count never goes below zero.
+		queuedBytes.addAndGet(length);
+		synchronized(writeQueue)
+		{
+			writeQueueTimes.add(System.nanoTime());
+			writeQueue.add(ByteBuffer.wrap(copy));
+		}
+		nioServer.RequestWrite(this);
+	}
+	
+	@Override
+	public void write(int data) throws IOException
+	{
+		write(new byte[] { (byte)data }, 0, 1);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WaitForWrites
+	//
+	// Description: waits until the queued reply bytes are below the low 
+	//				water mark or the connection is closed
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void WaitForWrites() throws IOException
+	{
+		writeLock.lock();
+		try
+		{
+			// counted before the queue is checked, so the selector thread 
+			// either sees the waiter or the waiter sees the drained queue
+			waitingWriters++;
+			while (!closed && queuedBytes.get() >= writeLowWater)
+			{
+				writable.await();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to send data.");
+		}
+		finally
+		{
+			waitingWriters--;
+			writeLock.unlock();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SignalWriters
+	//
+	// Description: wakes the threads waiting to queue more reply bytes
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void SignalWriters()
+	{
+		writeLock.lock();
+		try
+		{
+			writable.signalAll();
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WriteQueued
+	//
+	// Description: Called by the selector thread to write as much of the 
+	//				queued data as the channel will take without blocking, 
+	//				then pause or resume reading by how much is left
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void WriteQueued()
+	{
+		// nothing to do once the connection is closed
+		if (closed || !key.isValid())
+		{
+			return;
+		}
+		
+		try
+		{
+			ByteBuffer buffer;
+			while ((buffer = writeQueue.peek()) != null)
+			{
+				queuedBytes.addAndGet(-channel.write(buffer));
+				if (buffer.hasRemaining())
+				{
+					// socket buffer is full, wait to be writable again
+					UpdateInterest(true);
+					return;
+				}
+				writeQueue.poll();
+				metrics.RecordSend(writeQueueTimes.poll());
+			}
+			
+			// everything written
+			UpdateInterest(false);
+			if (closing)
+			{
+				Close();
+			}
+		}
+		catch (IOException e)
+		{
+			System.out.printf("IO Error while sending data to client on port %d.\n", channel.socket().getPort());
+			Close();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: UpdateInterest
+	//
+	// Description: Sets what the selector thread waits for on the 
+	//				channel. Reading stops once the queued reply bytes go 
+	//				above the high water mark and only starts again below 
+	//				the low water mark, so a client that doesn't read its 
+	//				replies can't make the server queue without limit. 
+	//				Below the low water mark the threads waiting to send 
+	//				more are woken too. Called by the selector thread only.
+	//
+	// Parameters: boolean: true if queued data is waiting to be written
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void UpdateInterest(boolean writing)
+	{
+		long queued = queuedBytes.get();
+		if (!readPaused && queued > writeHighWater)
+		{
+			readPaused = true;
+		}
+		else if (readPaused && queued < writeLowWater)
+		{
+			readPaused = false;
+		}
+		
+		int ops = readPaused ? 0 : SelectionKey.OP_READ;
+		key.interestOps(writing ? ops | SelectionKey.OP_WRITE : ops);
+		
+		if (waitingWriters > 0 && queued < writeLowWater)
+		{
+			SignalWriters();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: close
+	//
+	// Description: Called when the ServerClient closes its stream. Does 
+	//				nothing, the connection is closed by Close once the 
+	//				replies are written.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void close()
+	{
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: closes the connection to the client
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close()
+	{
+		if (!closed)
+		{
+			closed = true;
+			writeQueue.clear();
+			writeQueueTimes.clear();
+			queuedBytes.set(0);
+			key.cancel();
+			
+			// nothing more will be written, threads waiting to send fail
+			SignalWriters();
+			serverClient.CloseConnection();
+		}
+	}
+}
@@ -0,0 +1,359 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     NioServer.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Selector thread of the non-blocking front end. Each 
+//				   thread watches many client channels at once, so idle 
+//				   clients do not hold a thread. The first thread also 
+//				   accepts new clients and deals them out to every thread.
+//
+//
+//******************************************************************************
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class NioServer implements Runnable
+{
+	private Project5Server server;
+	private Selector selector;
+	private volatile Thread selectorThread; // the thread running this selector's loop
+	
+	private ServerSocketChannel serverChannel; // null unless this thread accepts clients
+	private NioServer[] ioThreads; // every selector thread, to deal new clients out to
+	private int nextThread;
+	
+	// work handed to this thread by other threads
+	private ConcurrentLinkedQueue<SocketChannel> newChannels;
+	private ConcurrentLinkedQueue<NioClientConnection> pendingWrites;
+	
+	private volatile boolean running;
+	
+	
+	public NioServer(Project5Server server) throws IOException
+	{
+		this.server = server;
+		selector = Selector.open();
+		newChannels = new ConcurrentLinkedQueue<SocketChannel>();
+		pendingWrites = new ConcurrentLinkedQueue<NioClientConnection>();
+		running = true;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Listen
+	//
+	// Description: makes this thread accept new clients on a server 
+	//				channel and deal them out to the selector threads
+	//
+	// Parameters: ServerSocketChannel: the bound server channel
+	//			   NioServer array: every selector thread
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Listen(ServerSocketChannel serverChannel, NioServer[] ioThreads) throws IOException
+	{
+		this.serverChannel = serverChannel;
+		this.ioThreads = ioThreads;
+		nextThread = 0;
+		
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AddChannel
+	//
+	// Description: hands a newly accepted client to this thread
+	//
+	// Parameters: SocketChannel: the client's channel
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void AddChannel(SocketChannel channel)
+	{
+		newChannels.add(channel);
+		selector.wakeup();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RequestWrite
+	//
+	// Description: Called by any thread once a connection has data 
+	//				queued, asks this thread to write it
+	//
+	// Parameters: NioClientConnection: the connection with data queued
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void RequestWrite(NioClientConnection connection)
+	{
+		pendingWrites.add(connection);
+		selector.wakeup();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsSelectorThread
+	//
+	// Description: checks if the calling thread is this selector thread, 
+	//				which must never wait for its own connections
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true if called by this selector thread
+	//
+	// **************************************************************
+	public boolean IsSelectorThread()
+	{
+		return Thread.currentThread() == selectorThread;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: run
+	//
+	// Description: The main loop of the selector thread
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void run()
+	{
+		selectorThread = Thread.currentThread();
+		while (running)
+		{
+			try
+			{
+				selector.select();
+				
+				RegisterNewChannels();
+				
+				// write data queued by the worker threads
+				NioClientConnection connection;
+				while ((connection = pendingWrites.poll()) != null)
+				{
+					connection.WriteQueued();
+				}
+				
+				// handle channels that are ready
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext())
+				{
+					SelectionKey key = keys.next();
+					keys.remove();
+					
+					if (!key.isValid())
+					{
+						continue;
+					}
+					
+					if (key.isAcceptable())
+					{
+						AcceptClient();
+					}
+					else
+					{
+						connection = (NioClientConnection)key.attachment();
+						if (key.isReadable())
+						{
+							connection.ReadFrames();
+						}
+						if (key.isValid() && key.isWritable())
+						{
+							connection.WriteQueued();
+						}
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				if (running)
+				{
+					System.err.printf("Unhandled exception in selector thread %s.\n", Thread.currentThread().getName());
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AcceptClient
+	//
+	// Description: accepts a waiting client and hands it to the next 
+	//				selector thread, or turns it away if the server is full
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void AcceptClient() throws IOException
+	{
+		SocketChannel channel = serverChannel.accept();
+		
+		if (channel != null)
+		{
+			channel.configureBlocking(false);
+			
+			// replies are written whole, send them without waiting to 
+			// fill a packet
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			
+			// increment the client count, if the connection limit allows it
+			if (!server.ClientConnected())
+			{
+				RejectClient(channel);
+				return;
+			}
+			
+			ioThreads[nextThread].AddChannel(channel);
+			nextThread = (nextThread + 1) % ioThreads.length;
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RegisterNewChannels
+	//
+	// Description: starts watching the clients handed to this thread
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void RegisterNewChannels()
+	{
+		SocketChannel channel;
+		while ((channel = newChannels.poll()) != null)
+		{
+			try
+			{
+				SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+				key.attach(new NioClientConnection(this, channel, key, server));
+			}
+			catch (IOException e)
+			{
+				System.err.printf("IO Error while setting up client on port %d.\n", channel.socket().getPort());
+				e.printStackTrace();
+				
+				// the client was counted when it was accepted
+				server.ClientDisconnected();
+				CloseChannel(channel);
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RejectClient
+	//
+	// Description: tells a client the server is full and disconnects it. 
+	//				The messages are tiny, so they fit in a new socket's 
+	//				buffer and are written without waiting, a client that 
+	//				doesn't get them is just disconnected.
+	//
+	// Parameters: SocketChannel: the client's channel
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void RejectClient(SocketChannel channel)
+	{
+		server.GetMetrics().ConnectionRejected();
+		try
+		{
+			ByteArrayOutputStream messages = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(messages);
+			out.writeUTF("xServer is full, please try again later");
+			out.writeUTF("xServer closing Connection.");
+			channel.write(ByteBuffer.wrap(messages.toByteArray()));
+		}
+		catch (IOException e)
+		{
+			// the client is disconnected either way
+		}
+		CloseChannel(channel);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CloseChannel
+	//
+	// Description: closes a client's channel that has no connection yet
+	//
+	// Parameters: SocketChannel: the client's channel
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void CloseChannel(SocketChannel channel)
+	{
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			System.err.printf("IO Error while closing connection on port %d.\n", channel.socket().getPort());
+			e.printStackTrace();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: stops the selector thread and closes its selector
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close() throws IOException
+	{
+		running = false;
+		selector.wakeup();
+		selector.close();
+	}
+}
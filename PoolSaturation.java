@@ -0,0 +1,189 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PoolSaturation.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Snapshot of how busy one of the server's thread pools
+//				   is: its threads, how many are running a task, how many
+//				   tasks are waiting and how many have finished. Used to
+//				   plan how large each pool should be.
+//
+//
+//******************************************************************************
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class PoolSaturation
+{
+	private final String name;
+	private final int threads;
+	private final int activeThreads;
+	private final long queuedTasks;
+	private final long completedTasks;
+	
+	
+	// counts constructor
+	public PoolSaturation(String name, int threads, int activeThreads, long queuedTasks, long completedTasks)
+	{
+		this.name = name;
+		this.threads = threads;
+		this.activeThreads = activeThreads;
+		this.queuedTasks = queuedTasks;
+		this.completedTasks = completedTasks;
+	}
+	
+	// thread pool constructor
+	public PoolSaturation(String name, ThreadPoolExecutor pool)
+	{
+		this(name, pool.getMaximumPoolSize(), pool.getActiveCount(), pool.getQueue().size(), pool.getCompletedTaskCount());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetLoad
+	//
+	// Description: gets the pool's running and waiting tasks per thread.
+	//				Below 1 some threads are idle, above 1 tasks are
+	//				waiting for a thread.
+	//
+	// Parameters: None
+	//
+	// Returns: double: the load of the pool
+	//
+	// **************************************************************
+	public double GetLoad()
+	{
+		return threads == 0 ? 0 : (double)(activeThreads + queuedTasks) / threads;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsSaturated
+	//
+	// Description: checks if every thread is busy and tasks are waiting
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true if the pool is saturated
+	//
+	// **************************************************************
+	public boolean IsSaturated()
+	{
+		return activeThreads >= threads && queuedTasks > 0;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetName
+	//
+	// Description: gets the name of the pool
+	//
+	// Parameters: None
+	//
+	// Returns: String: the name of the pool
+	//
+	// **************************************************************
+	public String GetName()
+	{
+		return name;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetThreads
+	//
+	// Description: gets the most threads the pool runs at once
+	//
+	// Parameters: None
+	//
+	// Returns: int: the size of the pool
+	//
+	// **************************************************************
+	public int GetThreads()
+	{
+		return threads;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetActiveThreads
+	//
+	// Description: gets the number of threads running a task
+	//
+	// Parameters: None
+	//
+	// Returns: int: the busy threads
+	//
+	// **************************************************************
+	public int GetActiveThreads()
+	{
+		return activeThreads;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetQueuedTasks
+	//
+	// Description: gets the number of tasks waiting for a thread
+	//
+	// Parameters: None
+	//
+	// Returns: long: the waiting tasks
+	//
+	// **************************************************************
+	public long GetQueuedTasks()
+	{
+		return queuedTasks;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetCompletedTasks
+	//
+	// Description: gets the number of tasks the pool has finished
+	//
+	// Parameters: None
+	//
+	// Returns: long: the finished tasks
+	//
+	// **************************************************************
+	public long GetCompletedTasks()
+	{
+		return completedTasks;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: toString
+	//
+	// Description: describes the snapshot in one line
+	//
+	// Parameters: None
+	//
+	// Returns: String: the description
+	//
+	// **************************************************************
+	@Override
+	public String toString()
+	{
+		return String.format("%s pool: %d/%d threads busy, %d tasks waiting, %d done, load %.2f%s",
+				name, activeThreads, threads, queuedTasks, completedTasks, GetLoad(), IsSaturated() ? " (saturated)" : "");
+	}
+}
@@ -0,0 +1,479 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeCache.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Server wide bitmap of which integers are prime, shared 
+//				   by every client connection. The bitmap is split into 
+//				   segments that are sieved the first time a client asks 
+//				   for a range that reaches them. Sieved segments can be 
+//				   kept in a memory mapped index file across restarts. 
+//				   The bitmap covers the integers below 2^31, primes past 
+//				   it are found a window at a time when asked for and are 
+//				   never stored.
+//
+//
+//******************************************************************************
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class PrimeCache
+{
+	// number of integers covered by one segment of the bitmap 
+	// (one bit per odd integer, 64KB per segment)
+	private final int segmentSpan = 1 << 20;
+	
+	// number of locks shared by the segments, segments that hash to 
+	// different locks can be sieved at the same time
+	private final int lockStripes = 64;
+	
+	// number of integers past the bitmap found at a time
+	private final int farWindowSize = 1 << 20;
+	
+	// the windows past the bitmap are sieved if a window has at least 1 
+	// integer per sieveBaseRatio base primes, otherwise their integers 
+	// are tested
+	private final int sieveBaseRatio = 8;
+	
+	// segments of the bitmap, null until first sieved. Once a segment is 
+	// published it is never changed, so readers never need to lock
+	private final AtomicReferenceArray<LongBuffer> segments;
+	private final Object[] segmentLocks;
+	
+	private final long bitmapLimit; // first integer past the bitmap
+	
+	private PrimeIndexFile indexFile; // null if segments are only kept in memory
+	
+	
+	// memory only constructor
+	public PrimeCache()
+	{
+		segments = new AtomicReferenceArray<LongBuffer>((int)(((long)Integer.MAX_VALUE + 1) / segmentSpan));
+		bitmapLimit = (long)segments.length() * segmentSpan;
+		segmentLocks = new Object[lockStripes];
+		for (int i = 0; i < lockStripes; i++)
+		{
+			segmentLocks[i] = new Object();
+		}
+	}
+	
+	// index file constructor
+	public PrimeCache(String indexFileName) throws IOException
+	{
+		this();
+		indexFile = new PrimeIndexFile(indexFileName, segmentSpan, segments.length());
+		
+		// map every segment sieved before the server last closed
+		for (int segment = 0; segment < segments.length(); segment++)
+		{
+			segments.set(segment, indexFile.LoadSegment(segment));
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetPrimes
+	//
+	// Description: gets every prime integer between first and second 
+	//				(inclusive) from the bitmap, extending the bitmap 
+	//				first if the range reaches segments not yet sieved
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: long array: the primes in the range, in ascending order
+	//
+	// **************************************************************
+	public long[] GetPrimes(long first, long second)
+	{
+		// no primes below 2 or in an empty range
+		if (second < 2 || second < first)
+		{
+			return new long[0];
+		}
+		
+		// the part of the range past the bitmap is found separately
+		if (second >= bitmapLimit)
+		{
+			long[] nearPrimes = GetPrimes(first, bitmapLimit - 1);
+			long[] farPrimes = GetFarPrimes(Math.max(first, bitmapLimit), second);
+			long[] primes = Arrays.copyOf(nearPrimes, nearPrimes.length + farPrimes.length);
+			System.arraycopy(farPrimes, 0, primes, nearPrimes.length, farPrimes.length);
+			return primes;
+		}
+		
+		first = Math.max(first, 2);
+		long[] primes = new long[(int)CountPrimes(first, second)];
+		int primeCount = 0;
+		
+		// 2 is the only even prime, the bitmap only holds odd integers
+		if (first == 2)
+		{
+			primes[primeCount++] = 2;
+		}
+		
+		// gather the set bits of each segment in the range
+		for (int segment = (int)(first / segmentSpan); segment <= (int)(second / segmentSpan); segment++)
+		{
+			LongBuffer bits = GetSegment(segment);
+			long segmentLow = (long)segment * segmentSpan;
+			int firstBit = (int)(Math.max(first - segmentLow, 0) / 2);
+			int lastBit = (int)((Math.min(second - segmentLow, segmentSpan - 1) - 1) >> 1);
+			
+			// no odd integers of the range in this segment
+			if (lastBit < firstBit)
+			{
+				continue;
+			}
+			
+			for (int word = firstBit >>> 6; word <= lastBit >>> 6; word++)
+			{
+				long wordBits = MaskWord(bits.get(word), word, firstBit, lastBit);
+				
+				// pull out each set bit of the word
+				while (wordBits != 0)
+				{
+					int bit = (word << 6) + Long.numberOfTrailingZeros(wordBits);
+					primes[primeCount++] = segmentLow + 2L * bit + 1;
+					wordBits &= wordBits - 1;
+				}
+			}
+		}
+		
+		return primes;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CountPrimes
+	//
+	// Description: counts the prime integers between first and second 
+	//				(inclusive) using the bitmap, extending the bitmap 
+	//				first if the range reaches segments not yet sieved
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: long: the number of primes in the range
+	//
+	// **************************************************************
+	public long CountPrimes(long first, long second)
+	{
+		if (second < 2 || second < first)
+		{
+			return 0;
+		}
+		
+		// count the part of the range past the bitmap a window at a 
+		// time, so only one window's primes are ever held at once
+		if (second >= bitmapLimit)
+		{
+			long primeCount = CountPrimes(first, bitmapLimit - 1);
+			long[] basePrimes = GetBasePrimes(Math.max(first, bitmapLimit), second);
+			for (long windowFirst = Math.max(first, bitmapLimit); windowFirst <= second; windowFirst += farWindowSize)
+			{
+				primeCount += GetWindowPrimes(windowFirst, Math.min(second, windowFirst + farWindowSize - 1), basePrimes).length;
+			}
+			return primeCount;
+		}
+		
+		first = Math.max(first, 2);
+		long primeCount = first == 2 ? 1 : 0;
+		
+		for (int segment = (int)(first / segmentSpan); segment <= (int)(second / segmentSpan); segment++)
+		{
+			LongBuffer bits = GetSegment(segment);
+			long segmentLow = (long)segment * segmentSpan;
+			int firstBit = (int)(Math.max(first - segmentLow, 0) / 2);
+			int lastBit = (int)((Math.min(second - segmentLow, segmentSpan - 1) - 1) >> 1);
+			
+			// no odd integers of the range in this segment
+			if (lastBit < firstBit)
+			{
+				continue;
+			}
+			
+			for (int word = firstBit >>> 6; word <= lastBit >>> 6; word++)
+			{
+				primeCount += Long.bitCount(MaskWord(bits.get(word), word, firstBit, lastBit));
+			}
+		}
+		
+		return primeCount;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetFarPrimes
+	//
+	// Description: finds every prime integer in a range past the 
+	//				bitmap, one window at a time
+	//
+	// Parameters:  long: first integer of the range, past the bitmap
+	//				long: last integer of the range
+	//
+	// Returns: long array: the primes in the range, in ascending order
+	//
+	// **************************************************************
+	private long[] GetFarPrimes(long first, long second)
+	{
+		long[] primes = new long[0];
+		int primeCount = 0;
+		
+		long[] basePrimes = GetBasePrimes(first, second);
+		for (long windowFirst = first; windowFirst <= second; windowFirst += farWindowSize)
+		{
+			long[] windowPrimes = GetWindowPrimes(windowFirst, Math.min(second, windowFirst + farWindowSize - 1), basePrimes);
+			if (primeCount + windowPrimes.length > primes.length)
+			{
+				primes = Arrays.copyOf(primes, Math.max(primes.length * 2, primeCount + windowPrimes.length));
+			}
+			System.arraycopy(windowPrimes, 0, primes, primeCount, windowPrimes.length);
+			primeCount += windowPrimes.length;
+		}
+		
+		return Arrays.copyOf(primes, primeCount);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetBasePrimes
+	//
+	// Description: reads the base primes for sieving the windows of a 
+	//				range past the bitmap from the bitmap, once for the 
+	//				whole range. Sieving a window costs a pass over every 
+	//				base prime up to its square root, while Miller-Rabin 
+	//				costs a test per odd integer, so the windows are 
+	//				sieved unless a window has far fewer integers than 
+	//				there are base primes.
+	//
+	// Parameters:  long: first integer of the range, past the bitmap
+	//				long: last integer of the range
+	//
+	// Returns: long array: every odd prime up to the square root of 
+	//						second, null if the windows are tested 
+	//						with Miller-Rabin instead
+	//
+	// **************************************************************
+	private long[] GetBasePrimes(long first, long second)
+	{
+		long root = PrimeSieve.SquareRoot(second);
+		long windowSize = Math.min(second - first + 1, farWindowSize);
+		if (root < bitmapLimit && root / Math.log(root) <= windowSize * sieveBaseRatio)
+		{
+			return GetPrimes(3, root);
+		}
+		return null;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetWindowPrimes
+	//
+	// Description: finds every prime integer in one window past the 
+	//				bitmap, by sieving it with the range's base primes 
+	//				or by testing each of its odd integers
+	//
+	// Parameters:  long: first integer of the window, past the bitmap
+	//				long: last integer of the window
+	//				long array: the range's base primes, null to test 
+	//							each integer
+	//
+	// Returns: long array: the primes in the window, in ascending order
+	//
+	// **************************************************************
+	private long[] GetWindowPrimes(long first, long second, long[] basePrimes)
+	{
+		if (basePrimes != null)
+		{
+			return new PrimeSieve().GetPrimes(first, second, basePrimes);
+		}
+		
+		// test each odd integer on its own, past 2^31 at most one 
+		// integer in about 21 is prime
+		PrimeMillerRabin primeTest = new PrimeMillerRabin();
+		long[] primes = new long[(int)((second - first) / 20) + 16];
+		int primeCount = 0;
+		for (long candidate = first | 1; candidate <= second; candidate += 2)
+		{
+			if (primeTest.IsPrime(candidate))
+			{
+				if (primeCount == primes.length)
+				{
+					primes = Arrays.copyOf(primes, primes.length * 2);
+				}
+				primes[primeCount++] = candidate;
+			}
+		}
+		
+		return Arrays.copyOf(primes, primeCount);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: MaskWord
+	//
+	// Description: clears the bits of a bitmap word that fall outside 
+	//				the requested bits
+	//
+	// Parameters:  long: the word of the bitmap
+	//				int: index of the word in its segment
+	//				int: first bit to keep
+	//				int: last bit to keep
+	//
+	// Returns: long: the masked word
+	//
+	// **************************************************************
+	private long MaskWord(long wordBits, int word, int firstBit, int lastBit)
+	{
+		if (word == firstBit >>> 6)
+		{
+			wordBits &= -1L << (firstBit & 63);
+		}
+		if (word == lastBit >>> 6)
+		{
+			wordBits &= -1L >>> (63 - (lastBit & 63));
+		}
+		return wordBits;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetSegment
+	//
+	// Description: gets a segment of the bitmap, sieving (and storing) 
+	//				it first if no client has reached it yet. Only 
+	//				threads sieving segments that share a lock wait on 
+	//				each other.
+	//
+	// Parameters:  int: index of the segment
+	//
+	// Returns: LongBuffer: bits of the segment, bit k is set if the 
+	//			odd integer (segment * segmentSpan + 2k + 1) is prime
+	//
+	// **************************************************************
+	private LongBuffer GetSegment(int segment)
+	{
+		LongBuffer bits = segments.get(segment);
+		
+		if (bits == null)
+		{
+			synchronized(segmentLocks[segment % lockStripes])
+			{
+				// another thread may have sieved it while we waited
+				bits = segments.get(segment);
+				if (bits == null)
+				{
+					bits = StoreSegment(segment, SieveSegment(segment));
+					segments.set(segment, bits);
+				}
+			}
+		}
+		
+		return bits;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: StoreSegment
+	//
+	// Description: appends a newly sieved segment to the index file, 
+	//				if there is one, so it survives a restart
+	//
+	// Parameters:  int: index of the segment
+	//				long array: bits of the segment
+	//
+	// Returns: LongBuffer: bits of the segment, mapped from the index 
+	//			file if it was stored
+	//
+	// **************************************************************
+	private LongBuffer StoreSegment(int segment, long[] bits)
+	{
+		if (indexFile != null)
+		{
+			try
+			{
+				return indexFile.StoreSegment(segment, bits);
+			}
+			catch (IOException e)
+			{
+				System.err.printf("IO Error while storing prime segment %d, keeping it in memory only.\n", segment);
+				e.printStackTrace();
+			}
+		}
+		
+		return LongBuffer.wrap(bits);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: closes the index file, if there is one
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close() throws IOException
+	{
+		if (indexFile != null)
+		{
+			indexFile.Close();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SieveSegment
+	//
+	// Description: sieves the integers covered by a segment and builds 
+	//				its bits
+	//
+	// Parameters:  int: index of the segment
+	//
+	// Returns: long array: bits of the segment
+	//
+	// **************************************************************
+	private long[] SieveSegment(int segment)
+	{
+		long[] bits = new long[segmentSpan / 128];
+		long segmentLow = (long)segment * segmentSpan;
+		long[] primes = new PrimeSieve().GetPrimes(segmentLow, segmentLow + segmentSpan - 1);
+		
+		for (int i = 0; i < primes.length; i++)
+		{
+			// skip 2, only odd integers are stored
+			if (primes[i] != 2)
+			{
+				int bit = (int)((primes[i] - segmentLow) / 2);
+				bits[bit >>> 6] |= 1L << (bit & 63);
+			}
+		}
+		
+		return bits;
+	}
+}
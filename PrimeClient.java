@@ -0,0 +1,392 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeClient.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Client library for Project 5, for programs that ask the
+//				   server for primes without a user. Keeps a pool of
+//				   connections and returns every answer as a
+//				   CompletableFuture, so any number of requests can be
+//				   waiting at once without a thread for each. Requests
+//				   are sent, and lost connections replaced, on a lane of
+//				   shared threads for each connection, so the caller
+//				   never waits on the network.
+//
+//
+//******************************************************************************
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrimeClient implements AutoCloseable
+{
+	private final String statsPrefix = "stats:";
+	private final String countPrefix = "count:";
+	
+	private String serverAddress;
+	private int serverPort;
+	
+	private PrimeClientConnection[] connections;
+	private ExecutorService sendService; // threads the requests are sent on, shared by the lanes
+	private SerialExecutor[] lanes; // sends each connection's requests in order and replaces it when lost
+	private AtomicInteger nextConnection; // connection for the next request, round robin
+	private boolean closed; // set by close, lost connections are no longer replaced
+	
+	
+	public PrimeClient(String serverAddress, int serverPort, int connectionCount) throws IOException
+	{
+		this.serverAddress = serverAddress;
+		this.serverPort = serverPort;
+		nextConnection = new AtomicInteger(0);
+		
+		sendService = Executors.newCachedThreadPool(task -> 
+		{
+			Thread thread = new Thread(task, "PrimeClient sender");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		connections = new PrimeClientConnection[Math.max(1, connectionCount)];
+		lanes = new SerialExecutor[connections.length];
+		for (int i = 0; i < lanes.length; i++)
+		{
+			lanes[i] = new SerialExecutor(sendService);
+		}
+		try
+		{
+			for (int i = 0; i < connections.length; i++)
+			{
+				connections[i] = new PrimeClientConnection(serverAddress, serverPort);
+			}
+		}
+		catch (IOException e)
+		{
+			close();
+			throw e;
+		}
+	}
+	
+	public PrimeClient(String serverAddress, int serverPort) throws IOException
+	{
+		this(serverAddress, serverPort, Runtime.getRuntime().availableProcessors());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RangeStats
+	//
+	// Description: asks for the sum, mean and standard deviation of the
+	//				primes between first and second, without the primes
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: CompletableFuture: completes with the sum, mean and
+	//			standard deviation, or exceptionally with the server's
+	//			message if it could not answer
+	//
+	// **************************************************************
+	public CompletableFuture<double[]> RangeStats(long first, long second)
+	{
+		return Request(statsPrefix + first + "," + second).thenApply(frames ->
+		{
+			for (int i = 0; i < frames.size(); i++)
+			{
+				if (frames.get(i)[0] == BinaryProtocol.statisticsFrame)
+				{
+					return BinaryProtocol.ReadStatistics(frames.get(i));
+				}
+			}
+			throw ServerError(frames);
+		});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CountPrimes
+	//
+	// Description: asks for the number of primes between first and
+	//				second
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: CompletableFuture: completes with the count, or
+	//			exceptionally with the server's message if it could not
+	//			answer
+	//
+	// **************************************************************
+	public CompletableFuture<Long> CountPrimes(long first, long second)
+	{
+		return Request(countPrefix + first + "," + second).thenApply(frames ->
+		{
+			byte[] last = frames.get(frames.size() - 1);
+			if (last[0] == BinaryProtocol.countFrame)
+			{
+				return BinaryProtocol.ReadCount(last);
+			}
+			throw ServerError(frames);
+		});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Primes
+	//
+	// Description: asks for every prime between first and second
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: CompletableFuture: completes with the primes in
+	//			ascending order, or exceptionally with the server's
+	//			message if it could not answer
+	//
+	// **************************************************************
+	public CompletableFuture<long[]> Primes(long first, long second)
+	{
+		return Request(first + "," + second).thenApply(frames ->
+		{
+			if (frames.get(frames.size() - 1)[0] != BinaryProtocol.endFrame)
+			{
+				throw ServerError(frames);
+			}
+			
+			// the primes frames are gaps from the prime before them
+			long[] primes = new long[0];
+			int primeCount = 0;
+			long previousPrime = 0;
+			for (int i = 0; i < frames.size(); i++)
+			{
+				if (frames.get(i)[0] == BinaryProtocol.primesFrame)
+				{
+					long[] framePrimes = BinaryProtocol.ReadPrimes(frames.get(i), previousPrime);
+					if (primeCount + framePrimes.length > primes.length)
+					{
+						primes = Arrays.copyOf(primes, Math.max(primes.length * 2, primeCount + framePrimes.length));
+					}
+					System.arraycopy(framePrimes, 0, primes, primeCount, framePrimes.length);
+					primeCount += framePrimes.length;
+					if (framePrimes.length > 0)
+					{
+						previousPrime = framePrimes[framePrimes.length - 1];
+					}
+				}
+			}
+			
+			return Arrays.copyOf(primes, primeCount);
+		});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Request
+	//
+	// Description: sends a request on the next connection of the pool,
+	//				on that connection's lane. The caller gets the answer
+	//				at once, and doesn't wait for the request to be 
+	//				written or for a lost connection to be replaced.
+	//
+	// Parameters: String: the request
+	//
+	// Returns: CompletableFuture: completes with the frames of the reply
+	//
+	// **************************************************************
+	private CompletableFuture<ArrayList<byte[]>> Request(String request)
+	{
+		int slot = Math.floorMod(nextConnection.getAndIncrement(), connections.length);
+		try
+		{
+			return CompletableFuture.supplyAsync(() -> GetConnection(slot).Send(request), lanes[slot])
+					.thenCompose(reply -> reply);
+		}
+		catch (RejectedExecutionException e)
+		{
+			return CompletableFuture.failedFuture(new IOException("Client closed."));
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetConnection
+	//
+	// Description: gets a connection of the pool, replacing it first if
+	//				it was lost. Only called on the connection's lane, so
+	//				a lost connection is replaced once. The new connection
+	//				may wait in line on a full server, requests on the 
+	//				other connections carry on meanwhile.
+	//
+	// Parameters: int: the connection's place in the pool
+	//
+	// Returns: PrimeClientConnection: the open connection
+	//
+	// **************************************************************
+	private PrimeClientConnection GetConnection(int slot)
+	{
+		PrimeClientConnection connection;
+		synchronized(connections)
+		{
+			if (closed)
+			{
+				throw new CompletionException(new IOException("Client closed."));
+			}
+			connection = connections[slot];
+		}
+		
+		if (connection != null && !connection.IsClosed())
+		{
+			return connection;
+		}
+		
+		PrimeClientConnection replacement;
+		try
+		{
+			replacement = new PrimeClientConnection(serverAddress, serverPort);
+		}
+		catch (IOException e)
+		{
+			throw new CompletionException(e);
+		}
+		
+		// the client may have been closed while connecting
+		boolean clientClosed;
+		synchronized(connections)
+		{
+			clientClosed = closed;
+			if (!clientClosed)
+			{
+				connections[slot] = replacement;
+			}
+		}
+		
+		if (clientClosed)
+		{
+			replacement.Close();
+			throw new CompletionException(new IOException("Client closed."));
+		}
+		return replacement;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ServerError
+	//
+	// Description: makes the exception for a reply that did not have
+	//				the answer, using the server's message if it sent one
+	//
+	// Parameters: ArrayList: the frames of the reply
+	//
+	// Returns: CompletionException: the exception to fail the answer with
+	//
+	// **************************************************************
+	private CompletionException ServerError(ArrayList<byte[]> frames)
+	{
+		byte[] last = frames.get(frames.size() - 1);
+		String message = last[0] == BinaryProtocol.messageFrame
+				? BinaryProtocol.ReadMessage(last).trim()
+				: "Unexpected reply from the server.";
+		return new CompletionException(new IOException(message));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CancelAll
+	//
+	// Description: asks the server to stop every request still waiting
+	//				for an answer, on every connection of the pool. Their
+	//				answers fail with the server's cancelled message.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void CancelAll()
+	{
+		for (PrimeClientConnection connection : GetConnections())
+		{
+			if (connection != null)
+			{
+				connection.Cancel();
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: close
+	//
+	// Description: closes every connection of the pool, requests still
+	//				waiting or not yet sent fail
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void close()
+	{
+		synchronized(connections)
+		{
+			closed = true;
+		}
+		
+		for (PrimeClientConnection connection : GetConnections())
+		{
+			if (connection != null)
+			{
+				connection.Close();
+			}
+		}
+		
+		// requests already on a lane still run, and fail
+		sendService.shutdown();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetConnections
+	//
+	// Description: copies the pool, so its connections can be written 
+	//				to without holding it
+	//
+	// Parameters: None
+	//
+	// Returns: PrimeClientConnection array: the pool's connections, 
+	//			null where one was never opened
+	//
+	// **************************************************************
+	private PrimeClientConnection[] GetConnections()
+	{
+		synchronized(connections)
+		{
+			return connections.clone();
+		}
+	}
+}
@@ -0,0 +1,363 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeClientConnection.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   One pooled connection of the PrimeClient library. Asks
+//				   for binary replies, sends every request tagged so many
+//				   can run on the server at once, and has a reader thread
+//				   that matches each tagged reply to its request.
+//
+//
+//******************************************************************************
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PrimeClientConnection implements Runnable
+{
+	private final String closeCommand = "Bye";
+	private final String cancelCommand = "cancel";
+	private final String connectionToken = "y";
+	private final String binaryCommand = "binary";
+	private final String tagMarker = "#";
+	private final String tagDelimiter = ":";
+	private final String queuedMarker = "q";
+	private final int connectTimeout = 10000; // milliseconds to wait for the server to accept the connection
+	private final int handshakeTimeout = 60000; // milliseconds to wait for each message before binary replies start, longer than the server's default wait in line
+	
+	private Socket socket;
+	private DataOutputStream dataOutStream;
+	private DataInputStream dataInStream;
+	
+	// held while writing, so requests from different threads don't 
+	// interleave. A lock instead of synchronized so a virtual thread 
+	// blocked on a slow write doesn't pin its carrier thread.
+	private ReentrantLock sendLock;
+	
+	// requests sent but not yet answered, by tag
+	private ConcurrentHashMap<String, CompletableFuture<ArrayList<byte[]>>> pendingReplies;
+	private AtomicInteger nextTag;
+	private volatile boolean closed;
+	
+	
+	public PrimeClientConnection(String serverAddress, int serverPort) throws IOException
+	{
+		pendingReplies = new ConcurrentHashMap<String, CompletableFuture<ArrayList<byte[]>>>();
+		nextTag = new AtomicInteger(0);
+		closed = false;
+		sendLock = new ReentrantLock();
+		
+		socket = new Socket();
+		try
+		{
+			socket.connect(new InetSocketAddress(serverAddress, serverPort), connectTimeout);
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(handshakeTimeout);
+			dataInStream = new DataInputStream(socket.getInputStream());
+			dataOutStream = new DataOutputStream(socket.getOutputStream());
+			
+			// wait to be fully connected, the server sends a message instead if it is full. 
+			// While clients wait in line for room the server sends their place in line.
+			String connectResponse = dataInStream.readUTF();
+			while (connectResponse.startsWith(queuedMarker))
+			{
+				connectResponse = dataInStream.readUTF();
+			}
+			if (!connectResponse.equals(connectionToken))
+			{
+				throw new IOException(connectResponse.substring(1));
+			}
+			
+			// every reply after the confirmation is binary
+			dataOutStream.writeUTF(binaryCommand);
+			dataOutStream.flush();
+			if (!dataInStream.readUTF().equals(connectionToken))
+			{
+				throw new IOException("Server does not support binary replies.");
+			}
+			
+			// a reply can take as long as its calculation, the reader 
+			// thread waits for it without a timeout
+			socket.setSoTimeout(0);
+		}
+		catch (IOException e)
+		{
+			socket.close();
+			throw e;
+		}
+		
+		// the reader thread is the only thread that reads from the server
+		Thread reader = new Thread(this, "PrimeClient reader " + socket.getLocalPort());
+		reader.setDaemon(true);
+		reader.start();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Send
+	//
+	// Description: sends a request tagged with a number unique to this
+	//				connection, without waiting for the reply
+	//
+	// Parameters: String: the request
+	//
+	// Returns: CompletableFuture: completes with the frames of the
+	//			reply, or exceptionally if the connection is lost
+	//
+	// **************************************************************
+	public CompletableFuture<ArrayList<byte[]>> Send(String request)
+	{
+		CompletableFuture<ArrayList<byte[]>> reply = new CompletableFuture<ArrayList<byte[]>>();
+		String tag = Integer.toString(nextTag.incrementAndGet());
+		pendingReplies.put(tag, reply);
+		
+		try
+		{
+			if (closed)
+			{
+				throw new IOException("Connection closed.");
+			}
+			
+			// requests from different threads must not interleave
+			sendLock.lock();
+			try
+			{
+				dataOutStream.writeUTF(tagMarker + tag + tagDelimiter + request);
+				dataOutStream.flush();
+			}
+			finally
+			{
+				sendLock.unlock();
+			}
+			
+			// closed while sending, the reader may already have failed the others
+			if (closed && pendingReplies.remove(tag) != null)
+			{
+				reply.completeExceptionally(new IOException("Connection closed."));
+			}
+		}
+		catch (IOException e)
+		{
+			pendingReplies.remove(tag);
+			reply.completeExceptionally(e);
+			Close();
+		}
+		
+		return reply;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: run
+	//
+	// Description: The reader thread. Reads each tag and the whole reply
+	//				after it, then completes the tagged request.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void run()
+	{
+		IOException failure = new IOException("Connection closed.");
+		try
+		{
+			while (!closed)
+			{
+				byte[] frame = BinaryProtocol.ReadFrame(dataInStream);
+				if (frame[0] != BinaryProtocol.tagFrame)
+				{
+					// untagged messages are only sent as the server closes
+					if (frame[0] == BinaryProtocol.messageFrame)
+					{
+						throw new IOException(BinaryProtocol.ReadMessage(frame));
+					}
+					continue;
+				}
+				
+				String tag = BinaryProtocol.ReadTag(frame);
+				ArrayList<byte[]> frames = new ArrayList<byte[]>();
+				
+				// read up to and including the frame that ends the reply
+				do
+				{
+					frame = BinaryProtocol.ReadFrame(dataInStream);
+					frames.add(frame);
+				}
+				while (!IsLastFrame(frame[0]));
+				
+				CompletableFuture<ArrayList<byte[]>> reply = pendingReplies.remove(tag);
+				if (reply != null)
+				{
+					reply.complete(frames);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			failure = e;
+		}
+		
+		Close();
+		
+		// fail every request still waiting
+		for (String tag : pendingReplies.keySet())
+		{
+			CompletableFuture<ArrayList<byte[]>> reply = pendingReplies.remove(tag);
+			if (reply != null)
+			{
+				reply.completeExceptionally(failure);
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsLastFrame
+	//
+	// Description: checks if a frame type ends a reply
+	//
+	// Parameters: byte: the frame type
+	//
+	// Returns: boolean: true if no more frames belong to the reply
+	//
+	// **************************************************************
+	private boolean IsLastFrame(byte type)
+	{
+		return type == BinaryProtocol.messageFrame
+				|| type == BinaryProtocol.endFrame
+				|| type == BinaryProtocol.countFrame
+				|| type == BinaryProtocol.cursorFrame;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Cancel
+	//
+	// Description: asks the server to stop every request still being
+	//				answered on this connection, each of them is answered
+	//				with the server's cancelled message
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Cancel()
+	{
+		if (closed)
+		{
+			return;
+		}
+		
+		try
+		{
+			sendLock.lock();
+			try
+			{
+				dataOutStream.writeUTF(cancelCommand);
+				dataOutStream.flush();
+			}
+			finally
+			{
+				sendLock.unlock();
+			}
+		}
+		catch (IOException e)
+		{
+			// the connection is lost, the reader thread fails its requests
+			Close();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsClosed
+	//
+	// Description: checks if the connection can still be used
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true once the connection is closed or lost
+	//
+	// **************************************************************
+	public boolean IsClosed()
+	{
+		return closed;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: tells the server the client is leaving, then closes
+	//				the connection. Requests still waiting are failed by
+	//				the reader thread.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close()
+	{
+		if (closed)
+		{
+			return;
+		}
+		closed = true;
+		
+		try
+		{
+			sendLock.lock();
+			try
+			{
+				dataOutStream.writeUTF(closeCommand);
+				dataOutStream.flush();
+			}
+			finally
+			{
+				sendLock.unlock();
+			}
+		}
+		catch (IOException e)
+		{
+			// the connection is already gone
+		}
+		
+		try
+		{
+			socket.close();
+		}
+		catch (IOException e)
+		{
+			// not a critical error, nothing left to close
+		}
+	}
+}
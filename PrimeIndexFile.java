@@ -0,0 +1,198 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeIndexFile.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   On disk copy of the prime cache's segments. The file is 
+//				   memory mapped so a restarted server can answer ranges 
+//				   sieved before the restart straight from the page cache.
+//
+//
+//******************************************************************************
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PrimeIndexFile
+{
+	private final long fileMagic = 0x50355052494D4553L; // "P5PRIMES"
+	private final int headerSize = 4096; // magic, segment span, segment count then one flag byte per segment
+	private final int flagsOffset = 16;
+	private final int headerBatchSize = 16; // segments stored between flushes of the header
+	
+	private final int segmentSpan;
+	private final int segmentCount;
+	private final int segmentBytes;
+	
+	private FileChannel fileChannel;
+	private MappedByteBuffer header;
+	private AtomicInteger unflushedSegments; // segments marked since the header was last flushed
+	
+	
+	// ***************************************************************
+	//
+	// Method: PrimeIndexFile
+	//
+	// Description: opens (or creates) the index file and maps its header. 
+	//				A file written with a different segment layout is 
+	//				cleared and started over.
+	//
+	// Parameters:  String: path of the index file
+	//				int: number of integers covered by one segment
+	//				int: number of segments
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public PrimeIndexFile(String fileName, int segmentSpan, int segmentCount) throws IOException
+	{
+		this.segmentSpan = segmentSpan;
+		this.segmentCount = segmentCount;
+		this.segmentBytes = segmentSpan / 16; // one bit per odd integer
+		
+		if (flagsOffset + segmentCount > headerSize)
+		{
+			throw new IllegalArgumentException("Too many segments for the prime index header.");
+		}
+		
+		fileChannel = FileChannel.open(Paths.get(fileName), 
+				StandardOpenOption.CREATE, 
+				StandardOpenOption.READ, 
+				StandardOpenOption.WRITE);
+		
+		unflushedSegments = new AtomicInteger(0);
+		boolean newFile = fileChannel.size() < headerSize;
+		header = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		
+		// start the file over if it is new or from a different layout
+		if (newFile 
+				|| header.getLong(0) != fileMagic 
+				|| header.getInt(8) != segmentSpan 
+				|| header.getInt(12) != segmentCount)
+		{
+			fileChannel.truncate(headerSize);
+			for (int i = 0; i < headerSize; i++)
+			{
+				header.put(i, (byte)0);
+			}
+			header.putLong(0, fileMagic);
+			header.putInt(8, segmentSpan);
+			header.putInt(12, segmentCount);
+			header.force();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: LoadSegment
+	//
+	// Description: maps a segment stored in the file. The bits are read 
+	//				through the page cache, nothing is copied to the heap.
+	//
+	// Parameters:  int: index of the segment
+	//
+	// Returns: LongBuffer: bits of the segment, or null if the segment 
+	//			has not been stored
+	//
+	// **************************************************************
+	public LongBuffer LoadSegment(int segment) throws IOException
+	{
+		if (header.get(flagsOffset + segment) == 0)
+		{
+			return null;
+		}
+		
+		return fileChannel.map(FileChannel.MapMode.READ_ONLY, SegmentOffset(segment), segmentBytes)
+				.order(ByteOrder.LITTLE_ENDIAN)
+				.asLongBuffer();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: StoreSegment
+	//
+	// Description: writes a newly sieved segment to the file and flushes 
+	//				it, then marks it as stored. The header is only 
+	//				flushed once per batch of segments (and on Close), a 
+	//				crash before then leaves the batch's segments 
+	//				unmarked, so they are just sieved again.
+	//
+	// Parameters:  int: index of the segment
+	//				long array: bits of the segment
+	//
+	// Returns: LongBuffer: the mapped copy of the segment's bits
+	//
+	// **************************************************************
+	public LongBuffer StoreSegment(int segment, long[] bits) throws IOException
+	{
+		MappedByteBuffer region = fileChannel.map(FileChannel.MapMode.READ_WRITE, SegmentOffset(segment), segmentBytes);
+		region.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(bits);
+		region.force();
+		
+		// each segment has its own flag byte, so no lock is needed here. 
+		// The bits are already on disk, so the flag can reach the disk 
+		// any time after this.
+		header.put(flagsOffset + segment, (byte)1);
+		if (unflushedSegments.incrementAndGet() % headerBatchSize == 0)
+		{
+			header.force();
+		}
+		
+		return region.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SegmentOffset
+	//
+	// Description: gets where a segment's bits start in the file
+	//
+	// Parameters:  int: index of the segment
+	//
+	// Returns: long: offset of the segment in the file
+	//
+	// **************************************************************
+	private long SegmentOffset(int segment)
+	{
+		return headerSize + (long)segment * segmentBytes;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Close
+	//
+	// Description: flushes the marks of the last batch of segments and 
+	//				closes the file. Segments already mapped stay readable 
+	//				until they are collected.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Close() throws IOException
+	{
+		header.force();
+		fileChannel.close();
+	}
+}
@@ -0,0 +1,241 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeMillerRabin.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Deterministic Miller-Rabin primality test for any
+//				   positive long, used to test single candidates too far
+//				   from zero to be worth sieving. The modular arithmetic
+//				   is done in Montgomery form, so no division is needed
+//				   inside the test.
+//
+//
+//******************************************************************************
+
+public class PrimeMillerRabin
+{
+	// bases that make the test exact for every long, the first 7 are
+	// enough below the first limit and the first 9 below the second
+	private final long[] bases = { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37 };
+	private final long sevenBaseLimit = 341550071728321L;
+	private final long nineBaseLimit = 3825123056546413051L;
+	
+	// the odd integer being tested and its Montgomery constants
+	private long modulus;
+	private long inverse; // modulus * inverse = 1 (mod 2^64)
+	private long one; // 2^64 mod modulus, 1 in Montgomery form
+	private long rSquared; // 2^128 mod modulus, converts into Montgomery form
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsPrime
+	//
+	// Description: determines whether a positive long is prime. Small
+	//				factors are found by dividing by the bases, anything
+	//				left is tested with each base.
+	//
+	// Parameters: long: the integer to test
+	//
+	// Returns: boolean: true if the integer is prime
+	//
+	// **************************************************************
+	public boolean IsPrime(long number)
+	{
+		if (number < 2)
+		{
+			return false;
+		}
+		
+		for (int i = 0; i < bases.length; i++)
+		{
+			if (number == bases[i])
+			{
+				return true;
+			}
+			if (number % bases[i] == 0)
+			{
+				return false;
+			}
+		}
+		
+		// no factor below 41, so anything under 41^2 is prime
+		if (number < 41 * 41)
+		{
+			return true;
+		}
+		
+		SetModulus(number);
+		
+		// number - 1 = oddPart * 2^twos
+		int twos = Long.numberOfTrailingZeros(number - 1);
+		long oddPart = (number - 1) >>> twos;
+		long minusOne = number - one;
+		
+		int baseCount = number < sevenBaseLimit ? 7 : number < nineBaseLimit ? 9 : bases.length;
+		for (int i = 0; i < baseCount; i++)
+		{
+			long x = Power(ToMontgomery(bases[i]), oddPart);
+			if (x == one || x == minusOne)
+			{
+				continue;
+			}
+			
+			// square until x reaches -1, never reaching it means the
+			// base is a witness that number is composite
+			boolean witness = true;
+			for (int square = 1; square < twos && witness; square++)
+			{
+				x = Multiply(x, x);
+				witness = x != minusOne;
+			}
+			if (witness)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SetModulus
+	//
+	// Description: works out the Montgomery constants for an odd modulus
+	//
+	// Parameters: long: the odd modulus
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void SetModulus(long number)
+	{
+		modulus = number;
+		
+		// Newton's method, each step doubles the correct low bits
+		// (number is its own inverse mod 8, 3 bits to start)
+		inverse = number;
+		for (int i = 0; i < 5; i++)
+		{
+			inverse *= 2 - number * inverse;
+		}
+		
+		// 2^64 - number is 2^64 mod number before the remainder
+		one = Long.remainderUnsigned(-number, number);
+		
+		// double 2^64 mod number 64 more times, number < 2^63 so
+		// doubling never passes 2^64
+		rSquared = one;
+		for (int i = 0; i < 64; i++)
+		{
+			rSquared <<= 1;
+			if (Long.compareUnsigned(rSquared, number) >= 0)
+			{
+				rSquared -= number;
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ToMontgomery
+	//
+	// Description: converts an integer below the modulus into
+	//				Montgomery form
+	//
+	// Parameters: long: the integer
+	//
+	// Returns: long: the integer times 2^64, mod the modulus
+	//
+	// **************************************************************
+	private long ToMontgomery(long value)
+	{
+		return Multiply(value, rSquared);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Power
+	//
+	// Description: raises a Montgomery form integer to a power by
+	//				squaring and multiplying
+	//
+	// Parameters: long: the base, in Montgomery form
+	//			   long: the exponent
+	//
+	// Returns: long: the power, in Montgomery form
+	//
+	// **************************************************************
+	private long Power(long base, long exponent)
+	{
+		long result = one;
+		while (exponent != 0)
+		{
+			if ((exponent & 1) != 0)
+			{
+				result = Multiply(result, base);
+			}
+			base = Multiply(base, base);
+			exponent >>>= 1;
+		}
+		return result;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Multiply
+	//
+	// Description: multiplies two Montgomery form integers. The 128 bit
+	//				product is reduced by subtracting the multiple of the
+	//				modulus that clears its low 64 bits (REDC).
+	//
+	// Parameters: long: first integer, below the modulus
+	//			   long: second integer, below the modulus
+	//
+	// Returns: long: the product, in Montgomery form
+	//
+	// **************************************************************
+	private long Multiply(long a, long b)
+	{
+		long low = a * b;
+		long high = Math.multiplyHigh(a, b);
+		
+		// low * inverse * modulus has the same low 64 bits as the product
+		long multiple = low * inverse;
+		long result = high - UnsignedMultiplyHigh(multiple, modulus);
+		return result < 0 ? result + modulus : result;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: UnsignedMultiplyHigh
+	//
+	// Description: gets the high 64 bits of the unsigned 128 bit product
+	//				of two longs (Math.unsignedMultiplyHigh needs Java 18)
+	//
+	// Parameters: long: first integer, unsigned
+	//			   long: second integer, unsigned
+	//
+	// Returns: long: the high 64 bits of the product
+	//
+	// **************************************************************
+	private long UnsignedMultiplyHigh(long a, long b)
+	{
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
+}
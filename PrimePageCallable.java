@@ -0,0 +1,78 @@
+//********************************************************************
+//
+//  Developer:           Michael Franklin
+//
+//  Project #:           Five
+//
+//  File Name:           PrimePageCallable.java
+//
+//  Course:              COSC 4301 - Modern Programming
+//
+//  Due Date:            3/13/2022
+//
+//  Instructor:          Fred Kumi
+//
+//  Description:         callable class that finds one page of a paged
+//                       reply, the first primes at or after a starting
+//                       integer, using the server's shared prime cache
+//
+//********************************************************************
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+public class PrimePageCallable implements Callable<long[]>
+{
+	private final int minWindowSize = 1 << 16; // smallest range of integers read from the cache at a time
+	private final int windowGapSize = 24; // integers per prime to read, more than the average gap below 2^31
+
+	private PrimeCache primeCache;
+	private long first;
+	private long second;
+	private int pageSize;
+
+
+	public PrimePageCallable(PrimeCache primeCache, long first, long second, int pageSize)
+	{
+		this.primeCache = primeCache;
+		this.first = first;
+		this.second = second;
+		this.pageSize = pageSize;
+	}
+
+   //***************************************************************
+   //
+   //  Method:       call
+   //
+   //  Description:  The main method of the callable class
+   //
+   //  Parameters:   None
+   //
+   //  Returns:      long array: up to pageSize primes between first and
+   //                second, in ascending order
+   //
+   //**************************************************************
+	@Override
+	public long[] call() throws Exception
+	{
+		long[] page = new long[pageSize];
+		int primeCount = 0;
+		
+		// read windows big enough to usually fill the page in one pass,
+		// stopping as soon as the page is full. The average gap grows 
+		// with the log of the integers, so far pages read wider windows.
+		long gapSize = Math.max(windowGapSize, (long)Math.log(second) + 4);
+		long windowSize = Math.max(minWindowSize, pageSize * gapSize);
+		for (long windowFirst = first; windowFirst <= second && primeCount < pageSize; windowFirst += windowSize)
+		{
+			long windowSecond = Math.min(second, windowFirst + windowSize - 1);
+			long[] primes = primeCache.GetPrimes(windowFirst, windowSecond);
+			
+			int copyCount = Math.min(primes.length, pageSize - primeCount);
+			System.arraycopy(primes, 0, page, primeCount, copyCount);
+			primeCount += copyCount;
+		}
+		
+		return primeCount == pageSize ? page : Arrays.copyOf(page, primeCount);
+	}
+}
@@ -0,0 +1,53 @@
+//********************************************************************
+//
+//  Developer:           Michael Franklin
+//
+//  Project #:           Five
+//
+//  File Name:           PrimeRangeCallable.java
+//
+//  Course:              COSC 4301 - Modern Programming
+//
+//  Due Date:            3/13/2022
+//
+//  Instructor:          Fred Kumi
+//
+//  Description:         callable class that finds the primes in one
+//                       chunk of a client's range using the server's
+//                       shared prime cache
+//
+//********************************************************************
+
+import java.util.concurrent.Callable;
+
+public class PrimeRangeCallable implements Callable<long[]>
+{
+	private PrimeCache primeCache;
+	private long first;
+	private long second;
+
+
+	public PrimeRangeCallable(PrimeCache primeCache, long first, long second)
+	{
+		this.primeCache = primeCache;
+		this.first = first;
+		this.second = second;
+	}
+
+   //***************************************************************
+   //
+   //  Method:       call
+   //
+   //  Description:  The main method of the callable class
+   //
+   //  Parameters:   None
+   //
+   //  Returns:      long array: the primes in the chunk, in ascending order
+   //
+   //**************************************************************
+	@Override
+	public long[] call() throws Exception
+	{
+		return primeCache.GetPrimes(first, second);
+	}
+}
@@ -0,0 +1,259 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeSieve.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Segmented Sieve of Eratosthenes engine used to find all
+//				   of the primes in a range of integers.
+//
+//
+//******************************************************************************
+
+import java.util.Arrays;
+
+public class PrimeSieve
+{
+	// number of odd integers covered by a single sieve segment
+	// (one byte per odd integer, 32KB keeps the segment inside the L1/L2 cache)
+	private final int segmentSize = 32768;
+
+
+	// ***************************************************************
+	//
+	// Method: GetPrimes
+	//
+	// Description: finds every prime integer between first and second
+	//				(inclusive) by sieving the range one cache sized
+	//				segment at a time. Gives the same results as
+	//				PrimeTestCallable.isPrime for every integer in the range.
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: long array: the primes in the range, in ascending order
+	//
+	// **************************************************************
+	public long[] GetPrimes(long first, long second)
+	{
+		// no primes below 2 or in an empty range
+		if (second < 2 || second < first)
+		{
+			return new long[0];
+		}
+
+		// get the odd primes needed to cross off composites in the range
+		return GetPrimes(first, second, GetBasePrimes((int)SquareRoot(second)));
+	}
+
+
+	// ***************************************************************
+	//
+	// Method: GetPrimes
+	//
+	// Description: finds every prime integer between first and second
+	//				(inclusive) with base primes the caller already has,
+	//				so windows far from zero don't need to sieve their
+	//				own base primes first.
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//				long array: every odd prime up to the square root
+	//							of second, in ascending order
+	//
+	// Returns: long array: the primes in the range, in ascending order
+	//
+	// **************************************************************
+	public long[] GetPrimes(long first, long second, long[] basePrimes)
+	{
+		// no primes below 2 or in an empty range
+		if (second < 2 || second < first)
+		{
+			return new long[0];
+		}
+
+		long[] primes = new long[EstimatePrimeCount(first, second)];
+		int primeCount = 0;
+
+		// 2 is the only even prime, the segments only hold odd integers
+		if (first <= 2)
+		{
+			primes[primeCount++] = 2;
+		}
+
+		// start at the first odd integer greater than 2 in the range
+		long segmentLow = Math.max(first, 3);
+		if (segmentLow % 2 == 0)
+		{
+			segmentLow++;
+		}
+
+		boolean[] composite = new boolean[segmentSize];
+
+		// sieve each segment of the range
+		while (segmentLow <= second)
+		{
+			long segmentHigh = Math.min(second, segmentLow + 2L * segmentSize - 1);
+			int oddCount = (int)((segmentHigh - segmentLow) / 2) + 1;
+
+			Arrays.fill(composite, 0, oddCount, false);
+
+			// cross off the odd multiples of each base prime
+			for (int i = 0; i < basePrimes.length; i++)
+			{
+				long prime = basePrimes[i];
+				long square = prime * prime;
+
+				// no more base primes can have multiples in this segment
+				if (square > segmentHigh)
+				{
+					break;
+				}
+
+				// first multiple of the prime in the segment, but never the prime itself
+				long multiple = Math.max(square, ((segmentLow + prime - 1) / prime) * prime);
+
+				// even multiples are not stored in the segment
+				if (multiple % 2 == 0)
+				{
+					multiple += prime;
+				}
+
+				// long index, base primes of windows far from zero are much 
+				// larger than the segment and one step past it could overflow an int
+				for (long index = (multiple - segmentLow) / 2; index < oddCount; index += prime)
+				{
+					composite[(int)index] = true;
+				}
+			}
+
+			// gather the primes left in the segment
+			for (int index = 0; index < oddCount; index++)
+			{
+				if (!composite[index])
+				{
+					// grow the output array if the estimate was too small
+					if (primeCount == primes.length)
+					{
+						primes = Arrays.copyOf(primes, primes.length * 2 + 1);
+					}
+					primes[primeCount++] = segmentLow + 2L * index;
+				}
+			}
+
+			segmentLow = segmentHigh + 1;
+
+			// keep the low end of the segment odd
+			if (segmentLow % 2 == 0)
+			{
+				segmentLow++;
+			}
+		}
+
+		return Arrays.copyOf(primes, primeCount);
+	}
+
+
+	// ***************************************************************
+	//
+	// Method: GetBasePrimes
+	//
+	// Description: finds the odd primes up to and including limit using
+	//				a plain sieve, these are used to sieve the segments.
+	//
+	// Parameters:  int: largest integer to check
+	//
+	// Returns: long array: the odd primes up to limit, in ascending order
+	//
+	// **************************************************************
+	private long[] GetBasePrimes(int limit)
+	{
+		if (limit < 3)
+		{
+			return new long[0];
+		}
+
+		boolean[] composite = new boolean[limit + 1];
+		long[] basePrimes = new long[EstimatePrimeCount(3, limit)];
+		int primeCount = 0;
+
+		for (int i = 3; i <= limit; i += 2)
+		{
+			if (!composite[i])
+			{
+				if (primeCount == basePrimes.length)
+				{
+					basePrimes = Arrays.copyOf(basePrimes, basePrimes.length * 2 + 1);
+				}
+				basePrimes[primeCount++] = i;
+
+				for (long multiple = (long)i * i; multiple <= limit; multiple += 2L * i)
+				{
+					composite[(int)multiple] = true;
+				}
+			}
+		}
+
+		return Arrays.copyOf(basePrimes, primeCount);
+	}
+
+
+	// ***************************************************************
+	//
+	// Method: SquareRoot
+	//
+	// Description: finds the integer square root of a long. The double
+	//				square root can be off by one past 2^52, so it is
+	//				corrected without squaring anything that could
+	//				overflow.
+	//
+	// Parameters:  long: a non-negative integer
+	//
+	// Returns: long: the largest integer whose square is at most number
+	//
+	// **************************************************************
+	public static long SquareRoot(long number)
+	{
+		long root = (long)Math.sqrt((double)number);
+		while (root > 0 && root > number / root)
+		{
+			root--;
+		}
+		while (root + 1 <= number / (root + 1))
+		{
+			root++;
+		}
+		return root;
+	}
+
+
+	// ***************************************************************
+	//
+	// Method: EstimatePrimeCount
+	//
+	// Description: estimates the number of primes in a range using the
+	//				prime number theorem, used to size output arrays.
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//
+	// Returns: int: estimated number of primes in the range
+	//
+	// **************************************************************
+	private int EstimatePrimeCount(long first, long second)
+	{
+		double high = second / Math.log(Math.max(second, 3));
+		double low = first > 2 ? first / Math.log(first) : 0;
+
+		// pad the estimate a little, it is a slight under count for small numbers
+		return (int)Math.max(16, (high - low) * 1.2 + 16);
+	}
+}
@@ -0,0 +1,241 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeStatistics.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Single pass statistics (count, sum, mean and standard 
+//				   deviation) of a list of integers. Partial statistics 
+//				   from separate chunks of a list can be merged together. 
+//				   The sum is kept exactly in 128 bits and the mean is 
+//				   kept as an offset from the first integer added, so 
+//				   integers far from zero neither overflow the sum nor 
+//				   lose the precision of their differences.
+//
+//
+//******************************************************************************
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+public class PrimeStatistics
+{
+	private long count;
+	private long sumHigh; // high 64 bits of the sum
+	private long sumLow; // low 64 bits of the sum, unsigned
+	private long shift; // the mean is measured from this integer
+	private double mean;
+	private double squaredDiffSum; // sum of squared differences from the mean
+	
+	
+	// empty statistics constructor
+	public PrimeStatistics()
+	{
+		count = 0;
+		sumHigh = 0;
+		sumLow = 0;
+		shift = 0;
+		mean = 0;
+		squaredDiffSum = 0;
+	}
+	
+	// count only constructor
+	public PrimeStatistics(long count)
+	{
+		this();
+		this.count = count;
+	}
+	
+	// totals constructor, for statistics taken from exact running totals 
+	// whose sum fits in a long
+	public PrimeStatistics(long count, long sum, BigInteger squareSum)
+	{
+		this();
+		
+		if (count > 0)
+		{
+			this.count = count;
+			sumLow = sum;
+			mean = (double)sum / count;
+			
+			// sum of squared differences = (count * squareSum - sum^2) / count,
+			// worked out exactly before converting to a double
+			BigInteger bigSum = BigInteger.valueOf(sum);
+			squaredDiffSum = new BigDecimal(squareSum.multiply(BigInteger.valueOf(count)).subtract(bigSum.multiply(bigSum)))
+					.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64)
+					.doubleValue();
+		}
+	}
+	
+	// slice of a list constructor
+	public PrimeStatistics(long[] list, int from, int to)
+	{
+		this();
+		AddAll(list, from, to);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AddAll
+	//
+	// Description: adds a slice of a list to the statistics in a single 
+	//				pass (Welford's method)
+	//
+	// Parameters: long array: list of non-negative integers
+	//			   int: index of the first integer to add
+	//			   int: index after the last integer to add
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void AddAll(long[] list, int from, int to)
+	{
+		if (count == 0 && from < to)
+		{
+			shift = list[from];
+		}
+		
+		for (int i = from; i < to; i++)
+		{
+			long value = list[i];
+			count++;
+			
+			// carry into the high bits when the low bits wrap
+			sumLow += value;
+			if (Long.compareUnsigned(sumLow, value) < 0)
+			{
+				sumHigh++;
+			}
+			
+			// update the running mean and squared differences, the 
+			// offset from shift is exact as a double
+			double offset = value - shift;
+			double diff = offset - mean;
+			mean += diff / count;
+			squaredDiffSum += diff * (offset - mean);
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Merge
+	//
+	// Description: merges the statistics of another chunk into these 
+	//				statistics (Chan's parallel method)
+	//
+	// Parameters: PrimeStatistics: statistics of the other chunk
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Merge(PrimeStatistics other)
+	{
+		if (other.count == 0)
+		{
+			return;
+		}
+		
+		// empty statistics take the other chunk's shift
+		if (count == 0)
+		{
+			shift = other.shift;
+		}
+		
+		long total = count + other.count;
+		double diff = (other.shift - shift) + (other.mean - mean);
+		
+		mean += diff * other.count / total;
+		squaredDiffSum += other.squaredDiffSum + diff * diff * ((double)count * other.count / total);
+		
+		long low = sumLow + other.sumLow;
+		sumHigh += other.sumHigh + (Long.compareUnsigned(low, sumLow) < 0 ? 1 : 0);
+		sumLow = low;
+		count = total;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetCount
+	//
+	// Description: gets the count of the integers
+	//
+	// Parameters: None
+	//
+	// Returns: long: the count of the integers
+	//
+	// **************************************************************
+	public long GetCount()
+	{
+		return count;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetSum
+	//
+	// Description: gets the sum of the integers
+	//
+	// Parameters: None
+	//
+	// Returns: double: the sum of the integers, rounded from the 
+	//			exact 128 bit sum
+	//
+	// **************************************************************
+	public double GetSum()
+	{
+		// the low bits are unsigned, halve them to convert
+		return sumHigh * 0x1p64 + ((sumLow >>> 1) * 2.0 + (sumLow & 1));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetMean
+	//
+	// Description: gets the mean of the integers
+	//
+	// Parameters: None
+	//
+	// Returns: double: the mean of the integers
+	//
+	// **************************************************************
+	public double GetMean()
+	{
+		return shift + mean;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetStDev
+	//
+	// Description: gets the (population) standard deviation of the 
+	//				integers
+	//
+	// Parameters: None
+	//
+	// Returns: double: the standard deviation of the integers
+	//
+	// **************************************************************
+	public double GetStDev()
+	{
+		if (count == 0)
+		{
+			return 0;
+		}
+		return Math.sqrt(squaredDiffSum / count);
+	}
+}
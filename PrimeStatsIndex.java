@@ -0,0 +1,286 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimeStatsIndex.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Checkpoints of the prime count, prime sum and sum of 
+//				   prime squares taken every 64K integers. The statistics 
+//				   of any covered range come from two checkpoints plus two 
+//				   short boundary reads of the prime cache. The server 
+//				   adds checkpoints in the background, a few at a time, 
+//				   after a request past the last one.
+//
+//
+//******************************************************************************
+
+import java.math.BigInteger;
+
+public class PrimeStatsIndex
+{
+	// number of integers between checkpoints
+	private final int checkpointSpan = 1 << 16;
+	
+	private final PrimeCache primeCache;
+	private final long indexLimit; // checkpoints only cover the integers below this
+	
+	// checkpoint i holds the totals for every prime below i * checkpointSpan
+	private final long[] primeCounts;
+	private final long[] primeSums;
+	private final BigInteger[] primeSquareSums; // too large for a long past ~3 billion
+	
+	// number of checkpoints filled in, only ever grows. Checkpoints below 
+	// it are never changed, so readers never need to lock
+	private volatile int checkpointCount;
+	
+	
+	public PrimeStatsIndex(PrimeCache primeCache)
+	{
+		this.primeCache = primeCache;
+		
+		int maxCheckpoints = (int)(((long)Integer.MAX_VALUE + 1) / checkpointSpan) + 1;
+		primeCounts = new long[maxCheckpoints];
+		primeSums = new long[maxCheckpoints];
+		primeSquareSums = new BigInteger[maxCheckpoints];
+		indexLimit = (long)(maxCheckpoints - 1) * checkpointSpan;
+		
+		// nothing below 0
+		primeSquareSums[0] = BigInteger.ZERO;
+		checkpointCount = 1;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetStatistics
+	//
+	// Description: gets the statistics of the primes between first and 
+	//				second (inclusive), adding checkpoints first if the 
+	//				range is past the last one
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range, below 2^31
+	//
+	// Returns: PrimeStatistics: statistics of the primes in the range
+	//
+	// **************************************************************
+	public PrimeStatistics GetStatistics(long first, long second)
+	{
+		if (second < first)
+		{
+			return new PrimeStatistics();
+		}
+		
+		ExtendTo((int)((second + 1) / checkpointSpan));
+		
+		// totals below second + 1 minus totals below first
+		long[] high = new long[2];
+		long[] low = new long[2];
+		BigInteger highSquares = TotalsBelow(second + 1, high);
+		BigInteger lowSquares = TotalsBelow(first, low);
+		
+		return new PrimeStatistics(high[0] - low[0], high[1] - low[1], highSquares.subtract(lowSquares));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsCovered
+	//
+	// Description: checks if a range can be answered from the existing 
+	//				checkpoints without adding more. Ranges past 2^31 are 
+	//				never covered.
+	//
+	// Parameters:  long: last integer of the range
+	//
+	// Returns: boolean: true if the range is covered
+	//
+	// **************************************************************
+	public boolean IsCovered(long second)
+	{
+		return second < indexLimit && (second + 1) / checkpointSpan < checkpointCount;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetCoveredEnd
+	//
+	// Description: gets the last integer the existing checkpoints cover, 
+	//				so the start of a wider range can be answered from 
+	//				them and only the rest calculated
+	//
+	// Parameters: None
+	//
+	// Returns: long: the last integer covered
+	//
+	// **************************************************************
+	public long GetCoveredEnd()
+	{
+		return Math.min((long)checkpointCount * checkpointSpan - 2, indexLimit - 1);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetIndexEnd
+	//
+	// Description: gets the last integer checkpoints can ever cover, 
+	//				just below 2^31
+	//
+	// Parameters: None
+	//
+	// Returns: long: the last integer that can be covered
+	//
+	// **************************************************************
+	public long GetIndexEnd()
+	{
+		return indexLimit - 1;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ExtendStep
+	//
+	// Description: adds at most a few checkpoints towards an integer, so 
+	//				a long extension can be split into short tasks that 
+	//				share the calculation threads with the clients
+	//
+	// Parameters:  long: the integer to cover, below 2^31
+	//				int: most checkpoints to add
+	//
+	// Returns: boolean: true once the integer is covered
+	//
+	// **************************************************************
+	public boolean ExtendStep(long second, int maxCheckpoints)
+	{
+		int needed = (int)((second + 1) / checkpointSpan);
+		ExtendTo(Math.min(needed, checkpointCount - 1 + maxCheckpoints));
+		return IsCovered(second);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: TotalsBelow
+	//
+	// Description: gets the prime count, sum and sum of squares of every 
+	//				prime below a limit, from the checkpoint before the 
+	//				limit plus the primes between the two
+	//
+	// Parameters:  long: the limit (not included)
+	//				long array: set to the count and sum
+	//
+	// Returns: BigInteger: the sum of squares
+	//
+	// **************************************************************
+	private BigInteger TotalsBelow(long limit, long[] totals)
+	{
+		int checkpoint = (int)(limit / checkpointSpan);
+		long checkpointLow = (long)checkpoint * checkpointSpan;
+		
+		totals[0] = primeCounts[checkpoint];
+		totals[1] = primeSums[checkpoint];
+		BigInteger squares = primeSquareSums[checkpoint];
+		
+		// add the boundary primes between the checkpoint and the limit
+		if (limit > checkpointLow)
+		{
+			long[] boundary = new long[2];
+			squares = squares.add(SumPrimes(checkpointLow, limit - 1, boundary));
+			totals[0] += boundary[0];
+			totals[1] += boundary[1];
+		}
+		
+		return squares;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ExtendTo
+	//
+	// Description: adds checkpoints until a checkpoint is filled in. 
+	//				Only one thread adds checkpoints at a time.
+	//
+	// Parameters:  int: the checkpoint needed
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void ExtendTo(int needed)
+	{
+		if (needed < checkpointCount)
+		{
+			return;
+		}
+		
+		synchronized(this)
+		{
+			long[] block = new long[2];
+			for (int checkpoint = checkpointCount; checkpoint <= needed; checkpoint++)
+			{
+				// totals of the primes between the last checkpoint and this one
+				long blockLow = (long)(checkpoint - 1) * checkpointSpan;
+				BigInteger blockSquares = SumPrimes(blockLow, blockLow + checkpointSpan - 1, block);
+				
+				primeCounts[checkpoint] = primeCounts[checkpoint - 1] + block[0];
+				primeSums[checkpoint] = primeSums[checkpoint - 1] + block[1];
+				primeSquareSums[checkpoint] = primeSquareSums[checkpoint - 1].add(blockSquares);
+				
+				// publish the checkpoint
+				checkpointCount = checkpoint + 1;
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SumPrimes
+	//
+	// Description: gets the count, sum and sum of squares of the primes 
+	//				between first and second (inclusive) from the cache
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//				long array: set to the count and sum
+	//
+	// Returns: BigInteger: the sum of squares
+	//
+	// **************************************************************
+	private BigInteger SumPrimes(long first, long second, long[] totals)
+	{
+		long[] primes = primeCache.GetPrimes(first, second);
+		long sum = 0;
+		
+		// each square fits in a long, carry into the BigInteger before 
+		// the running total could overflow
+		BigInteger squares = BigInteger.ZERO;
+		long squareSum = 0;
+		for (int i = 0; i < primes.length; i++)
+		{
+			long square = primes[i] * primes[i];
+			if (squareSum > Long.MAX_VALUE - square)
+			{
+				squares = squares.add(BigInteger.valueOf(squareSum));
+				squareSum = 0;
+			}
+			squareSum += square;
+			sum += primes[i];
+		}
+		
+		totals[0] = primes.length;
+		totals[1] = sum;
+		return squares.add(BigInteger.valueOf(squareSum));
+	}
+}
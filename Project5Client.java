@@ -1,428 +1,1045 @@
-//******************************************************************************
-//
-//  Developer:     Michael Franklin
-//
-//  Project #:     Project 5
-//
-//  File Name:     Project5Client.java
-//
-//  Course:        COSC 4301 - Modern Programming
-//
-//  Due Date:      03/13/2022
-//
-//  Instructor:    Fred Kumi 
-//
-//  Description:   Client side of Project 5.
-//
-//
-//******************************************************************************
-
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.EOFException;
-import java.io.IOException;
-import java.net.ConnectException;
-import java.net.Socket;
-import java.net.SocketException;
-import java.net.UnknownHostException;
-import java.util.Scanner;
-
-public class Project5Client {
-	private final String serverAddress = "127.0.0.1";
-	private final int serverPort = 4301;
-	private final String closeCommand = "Bye";
-	private final String packageDelimiter = "~"; // delimiter string to show there is no more data from the server
-	private final String connectionToken = "y"; // token to look for to check for full connection to the server
-	private final int primesPerLine = 10; // number of primes to output per line
-    
-	private DataOutputStream dataOutStream;
-	private DataInputStream dataInStream;
-	private Scanner inputStream;
-	private Socket socket;
-	private boolean connected;
-	
-	// ***************************************************************
-	//
-	// Method: main
-	//
-	// Description: The main method of the client
-	//
-	// Parameters: String array
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public static void main(String argvs[])
-	{
-		// create class object
-		Project5Client client = new Project5Client();
-		client.developerInfo();
-		
-		// setup client and connect to server
-		client.Setup();
-		
-		// if we successfully connected to the server
-		if (client.connected)
-		{
-			// main loop of client
-			String input = "";
-			while (!input.equals(client.closeCommand)) 
-			{
-				// get user input
-				input = client.GetUserInput();
-				
-				// send input to server
-				client.SendData(input);
-				
-				// wait for and output response from server
-				client.GetResponse();
-			}
-		}
-		
-		// close connection to server
-		client.CloseConnection();
-	}
-
-	// ***************************************************************
-	//
-	// Method: Setup
-	//
-	// Description: Sets up the client by connecting to the server
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void Setup()
-	{
-		try 
-		{
-			// not fully connected
-			connected = false;
-			
-			// try to connect to the server
-			socket = new Socket(serverAddress, serverPort);
-			
-			// connection successful	
-			// open input stream from the server
-			dataInStream = new DataInputStream(socket.getInputStream());
-			
-			// await connection response from server
-			String connectResponse = dataInStream.readUTF();
-			
-			// check for connection successful response
-			if (connectResponse.equals(connectionToken))
-			{
-				// fully connected
-				connected = true;
-				// open output stream to the server
-				dataOutStream = new DataOutputStream(socket.getOutputStream());
-				
-				// setup scanner to get user input
-				inputStream = new Scanner(System.in);
-				
-				// print setup and connection successful
-				System.out.println("Connected to Server");
-			}
-			else
-			{
-				// print out the message from the server
-				System.out.println(connectResponse.substring(1));
-			}
-		} 
-		catch (Exception e) 
-		{
-			if (e instanceof UnknownHostException) 
-			{
-				System.err.printf("Host Not Found at %s on port %d.\nPlease check that the server is running and try again.\n", serverAddress,
-						serverPort);
-				System.exit(0);
-			} 
-			else if (e instanceof ConnectException) 
-			{
-				System.err.printf("Could not connect to %s on port %d.\nPlease check that the server is running and try again.\n", serverAddress, serverPort);
-				//e.printStackTrace();
-				System.exit(0);
-			}
-			else if (e instanceof IOException) 
-			{
-				System.err.printf("IO Error while connecting to %s on port %d.\n", serverAddress, serverPort);
-				e.printStackTrace();
-				System.exit(0);
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while connecting to %s on port %d.\n", serverAddress, serverPort);
-				e.printStackTrace();
-				System.exit(0);
-			}
-		}
-	}
-
-	
-	// ***************************************************************
-	//
-	// Method: GetUserInput
-	//
-	// Description: prompts the user for input and returns user input
-	//
-	// Parameters: None
-	//
-	// Returns: String: input from user
-	//
-	// **************************************************************
-	public String GetUserInput()
-	{
-		System.out.println(
-				"To calcuate the sum, mean and standard deviation of the prime numbers in an integer list,\nplease enter 2 seperate integers following these rules:\n"
-				+ " * Integers must be seperated by a comma.\n"
-				+ " * Integers must be greater than 0.\n"
-				+ " * The second integer must be larger than the first.\n");
-		
-		String input = "";
-		while(input.equals(""))
-		{
-			input = inputStream.nextLine();
-		}
-		
-		return input;
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: SendData
-	//
-	// Description: Sends the passed string to the server.
-	//
-	// Parameters: String: data to be sent to the server
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void SendData(String data) 
-	{
-		try 
-		{
-			dataOutStream.writeUTF(data);
-		}
-		catch (Exception e)
-		{
-			if (e instanceof SocketException) 
-			{
-				System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
-				System.exit(0);
-			}
-			else if (e instanceof IOException) 
-			{
-				System.err.printf("IO Error while sending data to %s on port %d.", serverAddress, serverPort);
-				e.printStackTrace();
-				System.exit(0);
-			}
-		}
-	}
-
-	
-	// ***************************************************************
-	//
-	// Method: GetResponse
-	//
-	// Description: Gets the response from the server and outputs it 
-	//			    to the user
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void GetResponse() 
-	{
-		// get data chunks from server
-		boolean Done = false;
-		String data = "";
-		
-		// persistent number data between response data chunks
-		double sum = 0;
-		double mean = 0;
-		double stdev = 0; 
-		int slot = 0; // persists current output column of prime int
-		
-		// while there is still data to read
-		while (!Done)
-		{
-			try
-			{
-				data = dataInStream.readUTF();
-			}
-			catch (Exception e) 
-			{
-				if (e instanceof SocketException) 
-				{
-					System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
-					System.exit(0);
-				}
-				else if (e instanceof IOException) 
-				{
-					System.err.printf("IO Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
-					e.printStackTrace();
-					System.exit(0);
-				}
-				else if (e instanceof EOFException) 
-				{
-					System.err.printf("End of Field Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
-					e.printStackTrace();
-					System.exit(0);
-				}
-				else
-				{
-					System.err.printf("Unhandled exception while reading data from server at %s on port %d.\n", serverAddress, serverPort);
-					e.printStackTrace();
-					System.exit(0);
-				}
-			}
-			
-			// output data to user
-			// check if data is a message or integer data
-			if (data.startsWith("x"))
-			{
-				// server message, trim leading x and print
-				System.out.println(data.substring(1));
-				
-				// no more data
-				Done = true;
-			}
-			else
-			{
-				// number data chunk (calculation answers), parse and print
-				// check for data chunk position
-				String outputStrings[] = data.split(",");
-				// if we are at the end of the data chunk
-				if (data.contains(packageDelimiter))
-				{
-					// parse final chunk and there is no more data to read
-					Done = true;
-				}
-				
-				// check if we are at the beginning
-				if (outputStrings.length == 3 && !data.contains(packageDelimiter))
-				{
-					// parse calculated answers
-					sum = Double.parseDouble(outputStrings[0]);
-					mean = Double.parseDouble(outputStrings[1]);
-					stdev = Double.parseDouble(outputStrings[2]);
-					
-					// output header for user output
-					System.out.println("\nPrimes Found:");
-				}
-				else
-				{
-					int i = 0;
-					// print 10 primes per line
-					while(slot < primesPerLine - 1 && i < outputStrings.length)
-					{
-						if (i < outputStrings.length)
-						{
-							if (!outputStrings[i].equals(packageDelimiter))
-								
-								System.out.printf("%-5s ",outputStrings[i]);
-							i++;
-							slot++;
-							if (slot >= primesPerLine - 1)
-							{
-								System.out.println();
-								slot = 0;
-							}
-								
-						}			
-					}
-				}
-				
-				// if that was the last chunk show the final results
-				if (Done)
-				{
-					// output answers
-					System.out.printf(
-							"\n\nCalculated Results:\n\n"
-							+ "Sum: %.0f\n"
-							+ "Mean: %.3f\n"
-							+ "Standard Deviation: %.3f\n\n",
-							sum, mean, stdev);
-				}
-			}
-		}
-	}
-
-	
-	// ***************************************************************
-	//
-	// Method: CloseConnection
-	//
-	// Description: Closes all streams and the connection to the 
-	//			    server
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void CloseConnection() 
-	{
-		try
-		{
-			// close user input stream
-			if (inputStream != null)
-				inputStream.close();
-			
-			// close socket data streams
-			if (dataOutStream != null)
-				dataOutStream.close();
-			if (dataInStream != null)
-				dataInStream.close();
-			
-			// close connection to server
-			if (socket != null)
-				socket.close();
-		} 
-		catch (Exception e)
-		{
-			if (e instanceof IOException)
-			{
-				System.err.printf("IO Error while closing connection to %s on port %d.\n", serverAddress, serverPort);
-				e.printStackTrace();
-				System.exit(0);
-			}
-			else if (e instanceof NullPointerException)
-			{
-				System.err.printf("Connection not fully closed properly to %s on port %d.\n", serverAddress, serverPort);
-				//e.printStackTrace();
-				System.exit(0);
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while closing connection to %s on port %d.\n", serverAddress, serverPort);
-				e.printStackTrace();
-				System.exit(0);
-			}
-		}
-	}
-	
-	
-	//***************************************************************
-	//
-	//  Method:       developerInfo (Non Static)
-	// 
-	//  Description:  The developer information method of the program
-	//
-	//  Parameters:   None
-	//
-	//  Returns:      N/A 
-	//
-	//**************************************************************
-	public void developerInfo()
-	{
-		System.out.println("Name:    Michael Franklin");
-		System.out.println("Course:  COSC 4301 Modern Programming");
-		System.out.println("Project: Five\n");
-	}
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     Project5Client.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi 
+//
+//  Description:   Client side of Project 5.
+//
+//
+//******************************************************************************
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.Scanner;
+
+public class Project5Client {
+	private final String serverAddress = "127.0.0.1";
+	private final int serverPort = 4301;
+	private final String closeCommand = "Bye";
+	private final String packageDelimiter = "~"; // delimiter string to show there is no more data from the server
+	private final String connectionToken = "y"; // token to look for to check for full connection to the server
+	private final int primesPerLine = 10; // number of primes to output per line
+	private final String binaryCommand = "binary"; // asks the server for binary replies
+	private final String streamCommand = "stream"; // asks the server to send primes as they are found
+	private final String summaryMarker = "="; // starts the answers that end a streamed reply
+	private final String pagePrefix = "page:"; // asks for the answers and a cursor to page through the primes
+	private final String nextPrefix = "next:"; // asks for the page of primes at a cursor
+	private final String cursorMarker = "@"; // starts the cursor that ends a paged reply
+	private final String requestSeparator = ";"; // separates requests that are sent together
+	private final String tagMarker = "#"; // starts the tag of a pipelined request or reply
+	private final String tagDelimiter = ":"; // ends the tag of a pipelined request
+	private final String queuedMarker = "q"; // starts the place in line sent while the server is full
+	private final String deadlinePrefix = "deadline:"; // starts a request's deadline, "deadline:milliseconds:request"
+	private final String deadlineDelimiter = ":"; // ends a request's deadline
+	private final String partialMarker = "partial:"; // starts the last integer answered when the deadline cut a reply short
+    
+	private DataOutputStream dataOutStream;
+	private DataInputStream dataInStream;
+	private Scanner inputStream;
+	private Socket socket;
+	private boolean connected;
+	private boolean binaryProtocol; // true to ask the server for binary replies
+	private boolean streamReplies; // true to ask the server to stream replies
+	private boolean pagedRequest; // true if the last request was for a paged reply
+	private String pageCursor; // cursor of the next page, null if there is none
+	
+	// ***************************************************************
+	//
+	// Method: main
+	//
+	// Description: The main method of the client
+	//
+	// Parameters: String array
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void main(String argvs[])
+	{
+		// create class object
+		Project5Client client = new Project5Client();
+		client.developerInfo();
+		
+		// check for client options
+		for (int i = 0; i < argvs.length; i++)
+		{
+			if (argvs[i].equals("-binary"))
+			{
+				// smaller replies, sent as numbers instead of text
+				client.binaryProtocol = true;
+			}
+			else if (argvs[i].equals("-stream"))
+			{
+				// show primes as the server finds them
+				client.streamReplies = true;
+			}
+		}
+		
+		// setup client and connect to server
+		client.Setup();
+		
+		// if we successfully connected to the server
+		if (client.connected)
+		{
+			// main loop of client
+			String input = "";
+			while (!input.equals(client.closeCommand)) 
+			{
+				// get user input
+				input = client.GetUserInput();
+				
+				if (input.contains(client.requestSeparator))
+				{
+					// send every request before reading any reply
+					client.SendPipelined(input.split(client.requestSeparator));
+				}
+				else
+				{
+					// send input to server
+					client.SendData(input);
+					
+					// wait for and output response from server
+					client.GetResponse();
+				}
+			}
+		}
+		
+		// close connection to server
+		client.CloseConnection();
+	}
+
+	// ***************************************************************
+	//
+	// Method: Setup
+	//
+	// Description: Sets up the client by connecting to the server
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Setup()
+	{
+		try 
+		{
+			// not fully connected
+			connected = false;
+			
+			// try to connect to the server
+			socket = new Socket(serverAddress, serverPort);
+			
+			// connection successful	
+			// open input stream from the server
+			dataInStream = new DataInputStream(socket.getInputStream());
+			
+			// await connection response from server
+			String connectResponse = dataInStream.readUTF();
+			
+			// the server is full, wait in line until it lets us in or turns us away
+			while (connectResponse.startsWith(queuedMarker))
+			{
+				PrintPlaceInLine(connectResponse.substring(queuedMarker.length()));
+				connectResponse = dataInStream.readUTF();
+			}
+			
+			// check for connection successful response
+			if (connectResponse.equals(connectionToken))
+			{
+				// fully connected
+				connected = true;
+				// open output stream to the server
+				dataOutStream = new DataOutputStream(socket.getOutputStream());
+				
+				// ask for streamed replies, the server confirms with the connection token
+				if (streamReplies)
+				{
+					dataOutStream.writeUTF(streamCommand);
+					if (!dataInStream.readUTF().equals(connectionToken))
+					{
+						System.out.println("Server does not support streamed replies, waiting for whole replies.");
+						streamReplies = false;
+					}
+				}
+				
+				// ask for binary replies last, the server confirms with the connection 
+				// token and every reply after it is binary
+				if (binaryProtocol)
+				{
+					dataOutStream.writeUTF(binaryCommand);
+					if (!dataInStream.readUTF().equals(connectionToken))
+					{
+						System.out.println("Server does not support binary replies, using text replies.");
+						binaryProtocol = false;
+					}
+				}
+				
+				// setup scanner to get user input
+				inputStream = new Scanner(System.in);
+				
+				// print setup and connection successful
+				System.out.println("Connected to Server");
+			}
+			else
+			{
+				// print out the message from the server
+				System.out.println(connectResponse.substring(1));
+			}
+		} 
+		catch (Exception e) 
+		{
+			if (e instanceof UnknownHostException) 
+			{
+				System.err.printf("Host Not Found at %s on port %d.\nPlease check that the server is running and try again.\n", serverAddress,
+						serverPort);
+				System.exit(0);
+			} 
+			else if (e instanceof ConnectException) 
+			{
+				System.err.printf("Could not connect to %s on port %d.\nPlease check that the server is running and try again.\n", serverAddress, serverPort);
+				//e.printStackTrace();
+				System.exit(0);
+			}
+			else if (e instanceof IOException) 
+			{
+				System.err.printf("IO Error while connecting to %s on port %d.\n", serverAddress, serverPort);
+				e.printStackTrace();
+				System.exit(0);
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while connecting to %s on port %d.\n", serverAddress, serverPort);
+				e.printStackTrace();
+				System.exit(0);
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: PrintPlaceInLine
+	//
+	// Description: Prints the place in line the server sent while it is 
+	//				full, and about how long until the client is let in. 
+	//				Place 0 means the client is being let in.
+	//
+	// Parameters: String: the place and the seconds to wait, "place,seconds",
+	//					   the seconds are -1 if the server can't tell yet
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void PrintPlaceInLine(String placeInLine)
+	{
+		String[] fields = placeInLine.split(",");
+		if (fields[0].equals("0"))
+		{
+			// the last place in line, the server is letting us in
+			System.out.println("Server has room, connecting...");
+		}
+		else if (fields.length == 2 && !fields[1].startsWith("-"))
+		{
+			System.out.printf("Server is full, waiting in line at place %s, about %s seconds to wait...\n", fields[0], fields[1]);
+		}
+		else
+		{
+			System.out.printf("Server is full, waiting in line at place %s...\n", fields[0]);
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: GetUserInput
+	//
+	// Description: prompts the user for input and returns user input
+	//
+	// Parameters: None
+	//
+	// Returns: String: input from user
+	//
+	// **************************************************************
+	public String GetUserInput()
+	{
+		System.out.println(
+				"To calcuate the sum, mean and standard deviation of the prime numbers in an integer list,\nplease enter 2 seperate integers following these rules:\n"
+				+ " * Integers must be seperated by a comma.\n"
+				+ " * Integers must be greater than 0 and at most 4611686018427387903.\n"
+				+ " * The second integer must be larger than the first.\n"
+				+ "Start with \"stats:\" for only the sum, mean and standard deviation,\n"
+				+ "or with \"count:\" for only the number of primes.\n"
+				+ "Start with \"page:\" and add a third integer, the primes per page,\n"
+				+ "to get the answers first and then the primes one page at a time.\n"
+				+ "Seperate requests with \";\" to have the server work on them all at once.\n"
+				+ "Start with \"deadline:\", milliseconds and \":\" to get the answers for as much\n"
+				+ "of the range as the server finishes in that time.\n");
+		
+		if (pageCursor != null)
+		{
+			System.out.println("Press enter for the next page of primes, or enter a new request.");
+		}
+		
+		String input = "";
+		while(input.equals(""))
+		{
+			input = inputStream.nextLine();
+			
+			// an empty line asks for the next page
+			if (input.equals("") && pageCursor != null)
+			{
+				input = nextPrefix + pageCursor;
+			}
+		}
+		
+		pagedRequest = IsPagedRequest(input);
+		pageCursor = null;
+		
+		return input;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: IsPagedRequest
+	//
+	// Description: checks if a request asks for a paged reply, after 
+	//				any deadline
+	//
+	// Parameters: String: the request
+	//
+	// Returns: boolean: true if the reply is paged
+	//
+	// **************************************************************
+	private boolean IsPagedRequest(String request)
+	{
+		if (request.startsWith(deadlinePrefix) && request.indexOf(deadlineDelimiter, deadlinePrefix.length()) >= 0)
+		{
+			request = request.substring(request.indexOf(deadlineDelimiter, deadlinePrefix.length()) + deadlineDelimiter.length());
+		}
+		return request.startsWith(pagePrefix) || request.startsWith(nextPrefix);
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: PrintPartial
+	//
+	// Description: Tells the user the deadline cut the reply short
+	//
+	// Parameters: String: last integer the answers cover
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void PrintPartial(String end)
+	{
+		System.out.printf("\nDeadline reached, the answers only cover the range up to %s.\n", end);
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: SendData
+	//
+	// Description: Sends the passed string to the server.
+	//
+	// Parameters: String: data to be sent to the server
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendData(String data) 
+	{
+		try 
+		{
+			dataOutStream.writeUTF(data);
+		}
+		catch (Exception e)
+		{
+			if (e instanceof SocketException) 
+			{
+				System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
+				System.exit(0);
+			}
+			else if (e instanceof IOException) 
+			{
+				System.err.printf("IO Error while sending data to %s on port %d.", serverAddress, serverPort);
+				e.printStackTrace();
+				System.exit(0);
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: SendPipelined
+	//
+	// Description: Sends several requests, each tagged with its number, 
+	//				without waiting for replies, then outputs each reply 
+	//				as it arrives. The server works on the requests at 
+	//				the same time so the replies may come in any order.
+	//
+	// Parameters: String array: the requests
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendPipelined(String[] requests) 
+	{
+		for (int request = 0; request < requests.length; request++)
+		{
+			SendData(tagMarker + (request + 1) + tagDelimiter + requests[request].trim());
+		}
+		
+		for (int reply = 0; reply < requests.length; reply++)
+		{
+			// each reply starts with the tag of its request
+			String tag = "";
+			try
+			{
+				if (binaryProtocol)
+				{
+					tag = BinaryProtocol.ReadTag(BinaryProtocol.ReadFrame(dataInStream));
+				}
+				else
+				{
+					tag = dataInStream.readUTF().substring(tagMarker.length());
+				}
+			}
+			catch (Exception e) 
+			{
+				if (e instanceof SocketException) 
+				{
+					System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
+					System.exit(0);
+				}
+				else
+				{
+					System.err.printf("IO Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+			}
+			
+			String request = requests[Integer.parseInt(tag) - 1].trim();
+			System.out.printf("\nReply to request %s (%s):\n", tag, request);
+			
+			// the reply itself is the same as an untagged one
+			pagedRequest = IsPagedRequest(request);
+			GetResponse();
+		}
+		
+		pagedRequest = false;
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: GetResponse
+	//
+	// Description: Gets the response from the server and outputs it 
+	//			    to the user
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void GetResponse() 
+	{
+		if (pagedRequest)
+		{
+			GetPageResponse();
+			return;
+		}
+		if (binaryProtocol)
+		{
+			GetBinaryResponse();
+			return;
+		}
+		if (streamReplies)
+		{
+			GetStreamResponse();
+			return;
+		}
+		
+		// get data chunks from server
+		boolean Done = false;
+		String data = "";
+		
+		// persistent number data between response data chunks
+		double sum = 0;
+		double mean = 0;
+		double stdev = 0; 
+		int slot = 0; // persists current output column of prime int
+		
+		// while there is still data to read
+		while (!Done)
+		{
+			try
+			{
+				data = dataInStream.readUTF();
+			}
+			catch (Exception e) 
+			{
+				if (e instanceof SocketException) 
+				{
+					System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
+					System.exit(0);
+				}
+				else if (e instanceof IOException) 
+				{
+					System.err.printf("IO Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+				else if (e instanceof EOFException) 
+				{
+					System.err.printf("End of Field Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+				else
+				{
+					System.err.printf("Unhandled exception while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+			}
+			
+			// output data to user
+			// check if data is a message or integer data
+			if (data.startsWith("x"))
+			{
+				// server message, trim leading x and print
+				System.out.println(data.substring(1));
+				
+				// no more data
+				Done = true;
+			}
+			else if (data.startsWith(summaryMarker))
+			{
+				// answers only reply, no primes
+				PrintSummary(data.substring(summaryMarker.length()));
+				Done = true;
+			}
+			else if (data.startsWith(partialMarker))
+			{
+				// the answers that follow are for part of the range
+				PrintPartial(data.substring(partialMarker.length()));
+			}
+			else
+			{
+				// number data chunk (calculation answers), parse and print
+				// check for data chunk position
+				String outputStrings[] = data.split(",");
+				// if we are at the end of the data chunk
+				if (data.contains(packageDelimiter))
+				{
+					// parse final chunk and there is no more data to read
+					Done = true;
+				}
+				
+				// check if we are at the beginning
+				if (outputStrings.length == 3 && !data.contains(packageDelimiter))
+				{
+					// parse calculated answers
+					sum = Double.parseDouble(outputStrings[0]);
+					mean = Double.parseDouble(outputStrings[1]);
+					stdev = Double.parseDouble(outputStrings[2]);
+					
+					// output header for user output
+					System.out.println("\nPrimes Found:");
+				}
+				else
+				{
+					int i = 0;
+					// print 10 primes per line
+					while(slot < primesPerLine - 1 && i < outputStrings.length)
+					{
+						if (i < outputStrings.length)
+						{
+							if (!outputStrings[i].equals(packageDelimiter))
+								
+								System.out.printf("%-5s ",outputStrings[i]);
+							i++;
+							slot++;
+							if (slot >= primesPerLine - 1)
+							{
+								System.out.println();
+								slot = 0;
+							}
+								
+						}			
+					}
+				}
+				
+				// if that was the last chunk show the final results
+				if (Done)
+				{
+					// output answers
+					System.out.printf(
+							"\n\nCalculated Results:\n\n"
+							+ "Sum: %.0f\n"
+							+ "Mean: %.3f\n"
+							+ "Standard Deviation: %.3f\n\n",
+							sum, mean, stdev);
+				}
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: GetStreamResponse
+	//
+	// Description: Gets a streamed reply from the server and outputs the 
+	//			    primes as they arrive, then the answers that end it
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void GetStreamResponse() 
+	{
+		boolean Done = false;
+		boolean headerShown = false;
+		int slot = 0; // persists current output column of prime int
+		
+		// while there is still data to read
+		while (!Done)
+		{
+			String data = "";
+			try
+			{
+				data = dataInStream.readUTF();
+			}
+			catch (Exception e) 
+			{
+				if (e instanceof SocketException) 
+				{
+					System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
+					System.exit(0);
+				}
+				else
+				{
+					System.err.printf("IO Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+			}
+			
+			if (data.startsWith("x"))
+			{
+				// server message, trim leading x and print
+				System.out.println(data.substring(1));
+				Done = true;
+			}
+			else if (data.startsWith(summaryMarker))
+			{
+				// calculated answers, end of the reply
+				PrintSummary(data.substring(summaryMarker.length()));
+				Done = true;
+			}
+			else if (data.startsWith(partialMarker))
+			{
+				// the answers that follow are for part of the range
+				PrintPartial(data.substring(partialMarker.length()));
+			}
+			else
+			{
+				// output header for user output
+				if (!headerShown)
+				{
+					System.out.println("\nPrimes Found:");
+					headerShown = true;
+				}
+				
+				// print primesPerLine primes per line, as they arrive
+				String outputStrings[] = data.split(",");
+				for (int i = 0; i < outputStrings.length; i++)
+				{
+					System.out.printf("%-5s ", outputStrings[i]);
+					slot++;
+					if (slot >= primesPerLine)
+					{
+						System.out.println();
+						slot = 0;
+					}
+				}
+				System.out.flush();
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: GetPageResponse
+	//
+	// Description: Gets a paged reply from the server, either the 
+	//				answers or a page of primes, and outputs it to the 
+	//				user. The cursor that ends the reply is kept so the 
+	//				user can ask for the next page.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void GetPageResponse() 
+	{
+		boolean Done = false;
+		boolean headerShown = false;
+		int slot = 0; // persists current output column of prime int
+		
+		// while there is still data to read
+		while (!Done)
+		{
+			String data = "";
+			long[] primes = null;
+			try
+			{
+				if (binaryProtocol)
+				{
+					// read the frame as the text reply it stands for, 
+					// primes are decoded straight to integers
+					byte[] frame = BinaryProtocol.ReadFrame(dataInStream);
+					switch (frame[0])
+					{
+					case BinaryProtocol.messageFrame:
+						data = "x" + BinaryProtocol.ReadMessage(frame);
+						break;
+					case BinaryProtocol.statisticsFrame:
+						double[] answers = BinaryProtocol.ReadStatistics(frame);
+						data = summaryMarker + answers[0] + "," + answers[1] + "," + answers[2];
+						break;
+					case BinaryProtocol.cursorFrame:
+						data = cursorMarker + BinaryProtocol.ReadCursor(frame);
+						break;
+					case BinaryProtocol.partialFrame:
+						data = partialMarker + BinaryProtocol.ReadPartial(frame);
+						break;
+					case BinaryProtocol.primesFrame:
+						primes = BinaryProtocol.ReadPrimes(frame, 0);
+						break;
+					}
+				}
+				else
+				{
+					data = dataInStream.readUTF();
+				}
+			}
+			catch (Exception e) 
+			{
+				if (e instanceof SocketException) 
+				{
+					System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
+					System.exit(0);
+				}
+				else
+				{
+					System.err.printf("IO Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+			}
+			
+			// a text line of primes
+			if (primes == null && !data.startsWith("x") && !data.startsWith(summaryMarker) && !data.startsWith(cursorMarker) 
+					&& !data.startsWith(partialMarker))
+			{
+				String outputStrings[] = data.split(",");
+				primes = new long[outputStrings.length];
+				for (int i = 0; i < outputStrings.length; i++)
+				{
+					primes[i] = Long.parseLong(outputStrings[i]);
+				}
+			}
+			
+			if (primes != null)
+			{
+				// output header for user output
+				if (!headerShown)
+				{
+					System.out.println("\nPrimes Found:");
+					headerShown = true;
+				}
+				
+				// print primesPerLine primes per line
+				for (int i = 0; i < primes.length; i++)
+				{
+					System.out.printf("%-5d ", primes[i]);
+					slot++;
+					if (slot >= primesPerLine)
+					{
+						System.out.println();
+						slot = 0;
+					}
+				}
+			}
+			else if (data.startsWith("x"))
+			{
+				// server message, trim leading x and print
+				System.out.println(data.substring(1));
+				Done = true;
+			}
+			else if (data.startsWith(summaryMarker))
+			{
+				// calculated answers, the cursor of the first page follows
+				PrintSummary(data.substring(summaryMarker.length()));
+			}
+			else if (data.startsWith(partialMarker))
+			{
+				// the answers that follow are for part of the range
+				PrintPartial(data.substring(partialMarker.length()));
+			}
+			else
+			{
+				// cursor of the next page, end of the reply
+				String cursor = data.substring(cursorMarker.length());
+				if (cursor.equals(""))
+				{
+					System.out.println("\n\nNo more pages.\n");
+				}
+				else
+				{
+					pageCursor = cursor;
+					System.out.println();
+				}
+				Done = true;
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: PrintSummary
+	//
+	// Description: Outputs the answers of a summary reply, either the 
+	//				sum, mean and standard deviation or just the count
+	//
+	// Parameters: String: the comma separated answers
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void PrintSummary(String data) 
+	{
+		String outputStrings[] = data.split(",");
+		
+		if (outputStrings.length == 1)
+		{
+			System.out.printf("\nPrime Count: %s\n\n", outputStrings[0]);
+		}
+		else
+		{
+			System.out.printf(
+					"\n\nCalculated Results:\n\n"
+					+ "Sum: %.0f\n"
+					+ "Mean: %.3f\n"
+					+ "Standard Deviation: %.3f\n\n",
+					Double.parseDouble(outputStrings[0]), 
+					Double.parseDouble(outputStrings[1]), 
+					Double.parseDouble(outputStrings[2]));
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: GetBinaryResponse
+	//
+	// Description: Gets a binary reply from the server and outputs it 
+	//			    to the user
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void GetBinaryResponse() 
+	{
+		boolean Done = false;
+		
+		// persistent number data between reply frames
+		double[] answers = new double[3];
+		long previousPrime = 0;
+		int slot = 0; // persists current output column of prime int
+		boolean headerShown = false; // statistics only replies send no primes
+		
+		// while there is still data to read
+		while (!Done)
+		{
+			byte[] frame = new byte[] { BinaryProtocol.endFrame };
+			try
+			{
+				frame = BinaryProtocol.ReadFrame(dataInStream);
+			}
+			catch (Exception e) 
+			{
+				if (e instanceof SocketException) 
+				{
+					System.err.printf("Server on port %d closed the connection unexpectedly.\nPlease check the server and try again.", serverPort);
+					System.exit(0);
+				}
+				else
+				{
+					System.err.printf("IO Error while reading data from server at %s on port %d.\n", serverAddress, serverPort);
+					e.printStackTrace();
+					System.exit(0);
+				}
+			}
+			
+			switch (frame[0])
+			{
+			case BinaryProtocol.messageFrame:
+				// server message, no more data
+				System.out.println(BinaryProtocol.ReadMessage(frame));
+				Done = true;
+				break;
+			case BinaryProtocol.statisticsFrame:
+				// calculated answers
+				answers = BinaryProtocol.ReadStatistics(frame);
+				break;
+			case BinaryProtocol.countFrame:
+				// count only reply, no more data
+				System.out.printf("\nPrime Count: %d\n\n", BinaryProtocol.ReadCount(frame));
+				Done = true;
+				break;
+			case BinaryProtocol.partialFrame:
+				// the answers that follow are for part of the range
+				PrintPartial(Long.toString(BinaryProtocol.ReadPartial(frame)));
+				break;
+			case BinaryProtocol.primesFrame:
+				// output header for user output
+				if (!headerShown)
+				{
+					System.out.println("\nPrimes Found:");
+					headerShown = true;
+				}
+				
+				// print primesPerLine primes per line
+				long[] primes = BinaryProtocol.ReadPrimes(frame, previousPrime);
+				for (int i = 0; i < primes.length; i++)
+				{
+					System.out.printf("%-5d ", primes[i]);
+					slot++;
+					if (slot >= primesPerLine)
+					{
+						System.out.println();
+						slot = 0;
+					}
+				}
+				if (primes.length > 0)
+				{
+					previousPrime = primes[primes.length - 1];
+				}
+				break;
+			case BinaryProtocol.endFrame:
+				// output answers
+				System.out.printf(
+						"\n\nCalculated Results:\n\n"
+						+ "Sum: %.0f\n"
+						+ "Mean: %.3f\n"
+						+ "Standard Deviation: %.3f\n\n",
+						answers[0], answers[1], answers[2]);
+				Done = true;
+				break;
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: CloseConnection
+	//
+	// Description: Closes all streams and the connection to the 
+	//			    server
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void CloseConnection() 
+	{
+		try
+		{
+			// close user input stream
+			if (inputStream != null)
+				inputStream.close();
+			
+			// close socket data streams
+			if (dataOutStream != null)
+				dataOutStream.close();
+			if (dataInStream != null)
+				dataInStream.close();
+			
+			// close connection to server
+			if (socket != null)
+				socket.close();
+		} 
+		catch (Exception e)
+		{
+			if (e instanceof IOException)
+			{
+				System.err.printf("IO Error while closing connection to %s on port %d.\n", serverAddress, serverPort);
+				e.printStackTrace();
+				System.exit(0);
+			}
+			else if (e instanceof NullPointerException)
+			{
+				System.err.printf("Connection not fully closed properly to %s on port %d.\n", serverAddress, serverPort);
+				//e.printStackTrace();
+				System.exit(0);
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while closing connection to %s on port %d.\n", serverAddress, serverPort);
+				e.printStackTrace();
+				System.exit(0);
+			}
+		}
+	}
+	
+	
+	//***************************************************************
+	//
+	//  Method:       developerInfo (Non Static)
+	// 
+	//  Description:  The developer information method of the program
+	//
+	//  Parameters:   None
+	//
+	//  Returns:      N/A 
+	//
+	//**************************************************************
+	public void developerInfo()
+	{
+		System.out.println("Name:    Michael Franklin");
+		System.out.println("Course:  COSC 4301 Modern Programming");
+		System.out.println("Project: Five\n");
+	}
 }
\ No newline at end of file
@@ -1,305 +1,1097 @@
-//******************************************************************************
-//
-//  Developer:     Michael Franklin
-//
-//  Project #:     Project 5
-//
-//  File Name:     Project5Server.java
-//
-//  Course:        COSC 4301 - Modern Programming
-//
-//  Due Date:      03/13/2022
-//
-//  Instructor:    Fred Kumi 
-//
-//  Description:   Server side of Project 5.
-//
-//
-//******************************************************************************
-
-import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-
-public class Project5Server
-{
-	private final int serverPort = 4301;
-	
-	// minimum number of threads to keep open for doing calculations
-	// (threads that won't accept client connections)
-	private final int minProccessingThreads = 4; 
-	
-	private int clientNum; 
-	private int threadCount;
-	private Socket socket;
-	
-	private ServerSocket serverSocket;
-	private ExecutorService executorService;
-
-	
-	// ***************************************************************
-	//
-	// Method: main
-	//
-	// Description: The main method of the server
-	//
-	// Parameters: String array
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public static void main(String argvs[])
-	{
-		// create class object
-		Project5Server server = new Project5Server();
-		server.developerInfo();
-		
-		// setup server
-		server.Setup();
-		
-		// if setup was successful
-		if (server.serverSocket != null && !server.serverSocket.isClosed())
-		{
-			System.out.println("\nWaiting for first client to connect... ");
-			
-			// main loop of server
-			while (true)
-			{	
-				// wait for client to connect
-				server.ConnectClient();	
-				
-				// check to see if we have enough main threads open for calculations
-				if (server.threadCount - server.clientNum > server.minProccessingThreads)
-				{					
-					// pass client off to a serverclient thread for handling
-					server.executorService.execute(new ServerClient(server.socket, server));
-					
-					// increment the client count
-					server.clientNum++;
-				}
-				else
-				{
-					// pass back a "server is busy" message and disconnect the client
-					server.executorService.execute(new ServerClient(server.socket, server,true));
-				}
-				
-			}
-		}
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: Setup
-	//
-	// Description: Sets up the client by connecting to the server
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void Setup()
-	{
-		try 
-		{
-			
-			// setup server socket
-			serverSocket = new ServerSocket(serverPort);
-			clientNum = 0;
-			
-			// add shutdown hook
-			Runtime.getRuntime().addShutdownHook(new Thread() {
-			       public void run()
-			       {
-			           // run server close sequence before full termination
-			    	   CloseServer();
-			       }
-			       });
-			
-			// setup Executor instance
-			// Get count of available cores
-			threadCount = Runtime.getRuntime().availableProcessors();
-			
-			System.out.println("Server has " + threadCount + " processors. Allowing that many threads\n");
-			executorService = Executors.newFixedThreadPool(threadCount);
-			 
-			System.out.println("Server started.");
-		} 
-		catch (Exception e) 
-		{
-			if (e instanceof IOException) 
-			{
-				System.err.printf("IO Error while starting server on port %d.\n", serverPort);
-				e.printStackTrace();
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while starting server on port %d.\n", serverPort);
-				e.printStackTrace();
-			}
-			// close server
-			CloseServer();
-		}
-	}
-	
-
-	// ***************************************************************
-	//
-	// Method: ConnectClient
-	//
-	// Description: waits for a client to connect and sets up data 
-	//				streams and client socket.
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void ConnectClient()
-	{
-		try 
-		{
-			// wait for client to connect
-			socket = serverSocket.accept();
-		} 
-		catch (Exception e) 
-		{
-			if (e instanceof IOException) 
-			{
-				System.err.printf("IO Error while setting up client on port %d.\n", socket.getPort());
-				e.printStackTrace();
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while setting up client on port %d.\n", socket.getPort());
-				e.printStackTrace();
-			}
-			// error, connection not yet established, wait for next client
-		}
-	}
-
-	
-	// ***************************************************************
-	//
-	// Method: ClientDisconnected
-	//
-	// Description: Called by a client thread to notify a client disconnect.
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void ClientDisconnected() 
-	{
-		// decrement clientNum
-		clientNum--;
-	}
-		
-	
-	// ***************************************************************
-	//
-	// Method: QueueTaskExecution
-	//
-	// Description: Called by a client thread to queue a threaded task.
-	//
-	// Parameters: Callable: the task to be queued for execution
-	//
-	// Returns: Future: the returned result from the task
-	//
-	// **************************************************************
-	public <T> Future<T> QueueTaskExecution(Callable<T> task) 
-	{
-		return executorService.submit(task);
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: CloseServer
-	//
-	// Description: Closes the server, gracefully shuts down the executor 
-	//				service if possible
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void CloseServer() 
-	{
-		// print server closing
-		System.out.printf("Closing server on port %s...\n",	serverPort);
-				
-		if (executorService != null)
-		{
-			// try to close Executor service gracefully
-			executorService.shutdown();
-			try 
-			{
-			    if (!executorService.awaitTermination(1000, TimeUnit.MILLISECONDS)) 
-			    {
-			        executorService.shutdownNow();
-			    } 
-			} 
-			catch (InterruptedException e) 
-			{
-				System.err.printf("Interrupted Exception while while trying to close down Executor service, forcing service shutdown.\n", serverPort);
-				e.printStackTrace();
-			    executorService.shutdownNow();
-			}
-		}
-		
-		
-		// close server socket
-		try
-		{
-			if (serverSocket != null && !serverSocket.isClosed())
-				serverSocket.close();
-			
-			// print server closing
-			System.out.printf("Server on port $s closed.\n", serverPort);
-		} 
-		catch (Exception e)
-		{
-			if (e instanceof IOException)
-			{
-				System.err.printf("IO Error while closing server on port $s.\n", serverPort);
-				e.printStackTrace();
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while closing server on port $s.\n", serverPort);
-				e.printStackTrace();
-			}
-			
-			// print server closing
-			System.out.printf("Server on port $s not properly closed.\n", serverPort);
-		}
-	}
-		
-	
-	//***************************************************************
-	//
-	//  Method:       developerInfo (Non Static)
-	// 
-	//  Description:  The developer information method of the program
-	//
-	//  Parameters:   None
-	//
-	//  Returns:      N/A 
-	//
-	//**************************************************************
-	public void developerInfo()
-	{
-		System.out.println("Name:    Michael Franklin");
-		System.out.println("Course:  COSC 4301 Modern Programming");
-		System.out.println("Project: Five\n");
-	}
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     Project5Server.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi 
+//
+//  Description:   Server side of Project 5.
+//
+//
+//******************************************************************************
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Project5Server
+{
+	private final int serverPort = 4301;
+	
+	// file the prime cache is kept in between server runs
+	private final String primeIndexFile = "primes.idx";
+	
+	// number of selector threads used by the non-blocking front end
+	private final int ioThreadCount = 2;
+	
+	private AtomicInteger clientNum = new AtomicInteger(0); // connected clients, changed by the accept loop and client threads
+	private int threadCount; // calculation threads, one per processor unless set
+	private int clientThreadCount = 64; // client handler threads, the connection limit for platform thread clients
+	private Socket socket;
+	
+	private ServerSocket serverSocket;
+	private ThreadPoolExecutor computeService; // runs the calculation tasks, nothing else
+	private FairScheduler computeScheduler; // shares the calculation threads between clients
+	private ExecutorService replyService; // sends the clients' answers, so the calculation threads only calculate
+	
+	private boolean nonBlocking; // true to serve clients with selector threads
+	
+	private boolean virtualThreads; // true to give each client a virtual thread
+	private int maxClients = 1000; // connection limit when clients have virtual or selector threads
+	private ExecutorService connectionService; // runs client handlers, on platform or virtual threads
+	private ServerSocketChannel serverChannel;
+	private NioServer[] ioThreads;
+	private PrimeCache primeCache; // primes found so far, shared by all clients
+	private PrimeStatsIndex statsIndex; // prime count, sum and sum of squares checkpoints
+	private AtomicLong statsIndexTarget = new AtomicLong(-1); // integer the checkpoints are being extended to, -1 when they are not
+	private final int statsIndexStep = 64; // checkpoints added per extension task, 4M integers
+	private AdmissionQueue admissionQueue; // clients waiting for a free client handler
+	private int queueDepth = 64; // most clients that can wait for a client handler
+	private int queueWaitSeconds = 30; // longest a client waits before it is turned away
+	private ServerMetrics metrics; // requests, primes found and latencies
+	private ServerMetricsJmx metricsJmx; // the metrics shown over JMX
+	private int metricsPort; // port of the HTTP metrics and readiness listener, 0 for none
+	private String metricsAddress; // address the HTTP listener binds to, null for loopback only
+	private double maxReadyLoad = 4.0; // highest calculation load the readiness check passes at
+	private MetricsHttpServer metricsHttp;
+
+	
+	// ***************************************************************
+	//
+	// Method: main
+	//
+	// Description: The main method of the server
+	//
+	// Parameters: String array
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public static void main(String argvs[])
+	{
+		// create class object
+		Project5Server server = new Project5Server();
+		server.developerInfo();
+		
+		// check for server options
+		for (int i = 0; i < argvs.length; i++)
+		{
+			if (argvs[i].equals("-nio"))
+			{
+				// serve clients from a few selector threads instead of 
+				// giving each client its own thread
+				server.nonBlocking = true;
+			}
+			else if (argvs[i].equals("-virtual"))
+			{
+				// give each client a virtual thread, only the calculations 
+				// run on the fixed pool of platform threads
+				server.virtualThreads = true;
+			}
+			else if (argvs[i].equals("-maxclients") && i + 1 < argvs.length)
+			{
+				// connection limit for virtual and selector thread clients
+				server.maxClients = Integer.parseInt(argvs[++i]);
+			}
+			else if (argvs[i].equals("-computethreads") && i + 1 < argvs.length)
+			{
+				// calculation threads, instead of one per processor
+				server.threadCount = Integer.parseInt(argvs[++i]);
+			}
+			else if (argvs[i].equals("-clientthreads") && i + 1 < argvs.length)
+			{
+				// client handler threads when clients have platform threads
+				server.clientThreadCount = Integer.parseInt(argvs[++i]);
+			}
+			else if (argvs[i].equals("-queuedepth") && i + 1 < argvs.length)
+			{
+				// most clients that wait for a client handler when the server is full
+				server.queueDepth = Integer.parseInt(argvs[++i]);
+			}
+			else if (argvs[i].equals("-queuewait") && i + 1 < argvs.length)
+			{
+				// seconds a waiting client is kept before it is turned away
+				server.queueWaitSeconds = Integer.parseInt(argvs[++i]);
+			}
+			else if (argvs[i].equals("-metricsport") && i + 1 < argvs.length)
+			{
+				// serve /metrics and /ready over HTTP on this port
+				server.metricsPort = Integer.parseInt(argvs[++i]);
+			}
+			else if (argvs[i].equals("-metricsaddress") && i + 1 < argvs.length)
+			{
+				// bind the HTTP listener to this address instead of loopback, 
+				// 0.0.0.0 lets every machine that can reach the server read it
+				server.metricsAddress = argvs[++i];
+			}
+			else if (argvs[i].equals("-readyload") && i + 1 < argvs.length)
+			{
+				// running and waiting tasks per calculation thread above 
+				// which /ready says the server is not ready
+				server.maxReadyLoad = Double.parseDouble(argvs[++i]);
+			}
+		}
+		
+		// setup server
+		server.Setup();
+		
+		// if setup was successful with the non-blocking front end
+		if (server.nonBlocking && server.serverChannel != null && server.serverChannel.isOpen())
+		{
+			System.out.println("\nWaiting for first client to connect... ");
+			
+			// start the other selector threads, this thread runs the first
+			for (int i = 1; i < server.ioThreads.length; i++)
+			{
+				Thread ioThread = new Thread(server.ioThreads[i], "selector-" + i);
+				ioThread.setDaemon(true);
+				ioThread.start();
+			}
+			server.ioThreads[0].run();
+		}
+		// if setup was successful
+		else if (server.serverSocket != null && !server.serverSocket.isClosed())
+		{
+			System.out.println("\nWaiting for first client to connect... ");
+			
+			// main loop of server
+			while (true)
+			{	
+				// wait for client to connect
+				server.ConnectClient();	
+				
+				// clients never use the calculation threads, so they are 
+				// only limited by the connection limit of their own pool. 
+				// Clients already waiting go first.
+				if (server.admissionQueue.IsEmpty() && server.TryAddClient())
+				{
+					// pass client off to a client handler thread
+					server.connectionService.execute(new ServerClient(server.socket, server));
+				}
+				else if (server.admissionQueue.Offer(server.socket))
+				{
+					// the client waits in line, a handler may have been 
+					// freed since the line was checked
+					server.AdmitWaitingClients();
+				}
+				else
+				{
+					// pass back a "server is busy" message and disconnect the client
+					server.RejectClient(server.socket);
+				}
+				
+			}
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Setup
+	//
+	// Description: Sets up the client by connecting to the server
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Setup()
+	{
+		try 
+		{
+			
+			// without virtual threads clients get the usual capped pool, 
+			// not an uncapped pool of platform threads
+			if (virtualThreads && !VirtualThreadsAvailable())
+			{
+				System.out.println("Virtual threads need Java 21 or newer, -virtual is ignored.");
+				virtualThreads = false;
+			}
+			
+			// setup server socket
+			if (nonBlocking)
+			{
+				// non-blocking front end, the first selector thread 
+				// accepts clients for all of them
+				serverChannel = ServerSocketChannel.open();
+				serverChannel.bind(new InetSocketAddress(serverPort));
+				
+				ioThreads = new NioServer[ioThreadCount];
+				for (int i = 0; i < ioThreadCount; i++)
+				{
+					ioThreads[i] = new NioServer(this);
+				}
+				ioThreads[0].Listen(serverChannel, ioThreads);
+				
+				System.out.println("Serving up to " + maxClients + " clients from " + ioThreadCount + " selector threads.");
+			}
+			else
+			{
+				serverSocket = new ServerSocket(serverPort);
+			}
+			clientNum.set(0);
+			
+			// add shutdown hook
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+			       public void run()
+			       {
+			           // run server close sequence before full termination
+			    	   CloseServer();
+			       }
+			       });
+			
+			// setup the calculation threads and shared prime data
+			SetupWorkers(primeIndexFile);
+			
+			// show the server's load over JMX
+			metricsJmx = new ServerMetricsJmx(this, metrics);
+			metricsJmx.Register();
+			
+			// and over HTTP for scrapers and load balancers, if asked for
+			if (metricsPort > 0)
+			{
+				StartMetricsHttp();
+			}
+			
+			// client handlers get their own threads, separate from the 
+			// calculations, so a burst of clients can't starve them
+			if (virtualThreads)
+			{
+				connectionService = NewVirtualThreadExecutor();
+				System.out.println("Clients run on their own threads, allowing up to " + maxClients + " clients\n");
+			}
+			else if (!nonBlocking)
+			{
+				connectionService = NewThreadPool("client", clientThreadCount);
+				System.out.println("Clients run on a pool of " + clientThreadCount + " threads, allowing that many clients\n");
+			}
+			
+			// clients that connect while the server is full wait in line 
+			// for a client handler instead of being turned away
+			if (!nonBlocking)
+			{
+				admissionQueue = new AdmissionQueue(queueDepth, queueWaitSeconds * 1000L, metrics);
+				System.out.println("Up to " + queueDepth + " clients can wait up to " + queueWaitSeconds + " seconds for a free client handler\n");
+			}
+			 
+			System.out.println("Server started.");
+		} 
+		catch (Exception e) 
+		{
+			if (e instanceof IOException) 
+			{
+				System.err.printf("IO Error while starting server on port %d.\n", serverPort);
+				e.printStackTrace();
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while starting server on port %d.\n", serverPort);
+				e.printStackTrace();
+			}
+			// close server
+			CloseServer();
+		}
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: StartMetricsHttp
+	//
+	// Description: Starts the HTTP listener for the metrics and the 
+	//				readiness check. It only listens on loopback unless an 
+	//				address is given, so the metrics aren't open to the 
+	//				network by default. The server runs without it if its 
+	//				address or port can't be used.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void StartMetricsHttp()
+	{
+		try
+		{
+			InetAddress address = metricsAddress == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(metricsAddress);
+			metricsHttp = new MetricsHttpServer(this, address, metricsPort, maxReadyLoad);
+			metricsHttp.Start();
+			System.out.println("Serving /metrics and /ready on " + address.getHostAddress() + " port " + metricsPort + "\n");
+		}
+		catch (IOException e)
+		{
+			System.err.printf("IO Error while starting the metrics listener on %s port %d, the server runs without it.\n", metricsAddress == null ? "loopback" : metricsAddress, metricsPort);
+			e.printStackTrace();
+			metricsHttp = null;
+		}
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: SetupWorkers
+	//
+	// Description: Sets up the calculation threads, the prime cache and 
+	//				the statistics checkpoints, everything the client 
+	//				handlers use other than the network. Also used on its 
+	//				own by the benchmarks. The calculation threads only 
+	//				ever run queued tasks, never a client handler.
+	//
+	// Parameters: String: prime index file to keep the cache in, null 
+	//					   to keep it in memory only
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SetupWorkers(String indexFileName)
+	{
+		// setup Executor instance
+		// Get count of available cores, unless the thread count was set
+		if (threadCount <= 0)
+		{
+			threadCount = Runtime.getRuntime().availableProcessors();
+		}
+		
+		System.out.println("Server has " + Runtime.getRuntime().availableProcessors() + " processors. Allowing " + threadCount + " calculation threads\n");
+		computeService = NewThreadPool("compute", threadCount);
+		computeScheduler = new FairScheduler(computeService, threadCount);
+		
+		// answers are sent from threads of their own, each client's one 
+		// at a time, so a client that reads slowly never holds up a 
+		// calculation thread. Virtual threads if clients have them.
+		replyService = virtualThreads ? NewVirtualThreadExecutor() : NewCachedThreadPool("reply");
+		
+		// setup the shared prime cache, it is filled as clients ask for primes
+		// and kept in the index file for the next time the server starts
+		if (indexFileName == null)
+		{
+			primeCache = new PrimeCache();
+		}
+		else
+		{
+			try
+			{
+				primeCache = new PrimeCache(indexFileName);
+			}
+			catch (IOException e)
+			{
+				System.err.printf("IO Error while opening prime index file %s, primes will not be kept after the server closes.\n", indexFileName);
+				e.printStackTrace();
+				primeCache = new PrimeCache();
+			}
+		}
+		statsIndex = new PrimeStatsIndex(primeCache);
+		metrics = new ServerMetrics();
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: NewThreadPool
+	//
+	// Description: Makes a fixed size pool of named platform threads 
+	//				with an unbounded queue
+	//
+	// Parameters: String: name of the pool, its threads are named after it
+	//			   int: number of threads
+	//
+	// Returns: ThreadPoolExecutor: the pool
+	//
+	// **************************************************************
+	private ThreadPoolExecutor NewThreadPool(String name, int threads)
+	{
+		AtomicInteger threadNumber = new AtomicInteger(0);
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), 
+				task -> new Thread(task, name + "-" + threadNumber.incrementAndGet()));
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: NewCachedThreadPool
+	//
+	// Description: Makes a pool of named platform threads that starts a 
+	//				thread whenever none is free and lets idle ones end
+	//
+	// Parameters: String: name of the pool, its threads are named after it
+	//
+	// Returns: ThreadPoolExecutor: the pool
+	//
+	// **************************************************************
+	private ThreadPoolExecutor NewCachedThreadPool(String name)
+	{
+		AtomicInteger threadNumber = new AtomicInteger(0);
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
+				task -> new Thread(task, name + "-" + threadNumber.incrementAndGet()));
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: NewVirtualThreadExecutor
+	//
+	// Description: Makes an executor that starts a virtual thread for 
+	//				each task. Virtual threads need Java 21, check 
+	//				VirtualThreadsAvailable first.
+	//
+	// Parameters: None
+	//
+	// Returns: ExecutorService: the client handler executor
+	//
+	// **************************************************************
+	private ExecutorService NewVirtualThreadExecutor()
+	{
+		try
+		{
+			// looked up at run time so the server still builds on older versions
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Virtual threads are not available on this Java version.", e);
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: VirtualThreadsAvailable
+	//
+	// Description: Checks if this Java version has virtual threads
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true if virtual threads can be used
+	//
+	// **************************************************************
+	private boolean VirtualThreadsAvailable()
+	{
+		try
+		{
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: ConnectClient
+	//
+	// Description: waits for a client to connect and sets up data 
+	//				streams and client socket.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void ConnectClient()
+	{
+		try 
+		{
+			// wait for client to connect
+			socket = serverSocket.accept();
+		} 
+		catch (Exception e) 
+		{
+			if (e instanceof IOException) 
+			{
+				System.err.printf("IO Error while setting up client on port %d.\n", socket.getPort());
+				e.printStackTrace();
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while setting up client on port %d.\n", socket.getPort());
+				e.printStackTrace();
+			}
+			// error, connection not yet established, wait for next client
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RejectClient
+	//
+	// Description: tells a client the server is full and disconnects 
+	//				it. Runs on a reply thread, since every client handler 
+	//				is taken and a client slow to take the message would 
+	//				otherwise hold up the accept loop.
+	//
+	// Parameters: Socket: the client's socket
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void RejectClient(Socket client)
+	{
+		metrics.ConnectionRejected();
+		try
+		{
+			replyService.execute(new ServerClient(client, this, true));
+		}
+		catch (RejectedExecutionException e)
+		{
+			// the server is closing, just disconnect the client
+			try
+			{
+				client.close();
+			}
+			catch (IOException closeError)
+			{
+				// not a critical error, nothing left to close
+			}
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: ClientConnected
+	//
+	// Description: Called by a selector thread to notify a client connect.
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true if the client was counted, false if the 
+	//			server is full and the client must be turned away
+	//
+	// **************************************************************
+	public boolean ClientConnected() 
+	{
+		return TryAddClient();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: TryAddClient
+	//
+	// Description: Counts a new client if the connection limit allows it
+	//
+	// Parameters: None
+	//
+	// Returns: boolean: true if the client was counted, false if the 
+	//			server is full
+	//
+	// **************************************************************
+	private boolean TryAddClient() 
+	{
+		int limit = (virtualThreads || nonBlocking) ? maxClients : clientThreadCount;
+		
+		// the count is changed by client threads at the same time, only 
+		// increment it if nobody took the last place first
+		int current = clientNum.get();
+		while (current < limit)
+		{
+			if (clientNum.compareAndSet(current, current + 1))
+			{
+				return true;
+			}
+			current = clientNum.get();
+		}
+		return false;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AdmitWaitingClients
+	//
+	// Description: Passes clients waiting in line off to client handler 
+	//				threads while the connection limit allows it
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void AdmitWaitingClients() 
+	{
+		while (!admissionQueue.IsEmpty() && TryAddClient())
+		{
+			Socket waitingClient = admissionQueue.Poll();
+			if (waitingClient == null)
+			{
+				// every waiting client left, give the place back
+				clientNum.decrementAndGet();
+				return;
+			}
+			connectionService.execute(new ServerClient(waitingClient, this));
+		}
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: ClientDisconnected
+	//
+	// Description: Called by a client thread to notify a client disconnect. 
+	//				Safe to call from any thread.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void ClientDisconnected() 
+	{
+		// decrement clientNum
+		clientNum.decrementAndGet();
+		
+		// let the next waiting client have the freed client handler
+		if (admissionQueue != null)
+		{
+			admissionQueue.SlotReleased();
+			AdmitWaitingClients();
+		}
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetThreadCount
+	//
+	// Description: Called by a client thread to find how many calculation 
+	//				threads the server runs at once, used to size task chunks.
+	//
+	// Parameters: None
+	//
+	// Returns: int: number of calculation threads
+	//
+	// **************************************************************
+	public int GetThreadCount() 
+	{
+		return threadCount;
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetClientCount
+	//
+	// Description: Gets the number of clients connected
+	//
+	// Parameters: None
+	//
+	// Returns: int: the connected clients
+	//
+	// **************************************************************
+	public int GetClientCount() 
+	{
+		return clientNum.get();
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetWaitingClientCount
+	//
+	// Description: Gets the number of clients waiting in line for a 
+	//				client handler
+	//
+	// Parameters: None
+	//
+	// Returns: int: the waiting clients, 0 with the non-blocking front end
+	//
+	// **************************************************************
+	public int GetWaitingClientCount() 
+	{
+		return admissionQueue == null ? 0 : admissionQueue.GetSize();
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetMetrics
+	//
+	// Description: Called by a client thread to get the server's metrics, 
+	//				which it records its requests in.
+	//
+	// Parameters: None
+	//
+	// Returns: ServerMetrics: the server's metrics
+	//
+	// **************************************************************
+	public ServerMetrics GetMetrics() 
+	{
+		return metrics;
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetComputeSaturation
+	//
+	// Description: Gets how busy the calculation threads are
+	//
+	// Parameters: None
+	//
+	// Returns: PoolSaturation: snapshot of the calculation pool
+	//
+	// **************************************************************
+	public PoolSaturation GetComputeSaturation() 
+	{
+		return new PoolSaturation("compute", computeService.getMaximumPoolSize(), computeService.getActiveCount(), 
+								  computeScheduler.GetQueuedTasks(), computeScheduler.GetCompletedTasks());
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetConnectionSaturation
+	//
+	// Description: Gets how busy the client handlers are. Virtual thread 
+	//				and selector thread clients have no pool of their own, 
+	//				their snapshot is the connected clients against the 
+	//				connection limit.
+	//
+	// Parameters: None
+	//
+	// Returns: PoolSaturation: snapshot of the client handler pool
+	//
+	// **************************************************************
+	public PoolSaturation GetConnectionSaturation() 
+	{
+		if (connectionService instanceof ThreadPoolExecutor)
+		{
+			return new PoolSaturation("client", (ThreadPoolExecutor)connectionService);
+		}
+		return new PoolSaturation("client", maxClients, clientNum.get(), 
+				admissionQueue == null ? 0 : admissionQueue.GetSize(), 0);
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetReplyService
+	//
+	// Description: Called by a client to get the threads its answers are 
+	//				sent from. Each client sends through a SerialExecutor 
+	//				on them, so it holds at most one.
+	//
+	// Parameters: None
+	//
+	// Returns: Executor: the reply threads
+	//
+	// **************************************************************
+	public Executor GetReplyService() 
+	{
+		return replyService;
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetPrimeCache
+	//
+	// Description: Called by a client thread to get the prime cache 
+	//				shared by every client.
+	//
+	// Parameters: None
+	//
+	// Returns: PrimeCache: the server's prime cache
+	//
+	// **************************************************************
+	public PrimeCache GetPrimeCache() 
+	{
+		return primeCache;
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: GetStatsIndex
+	//
+	// Description: Called by a client thread to get the prime statistics 
+	//				checkpoints shared by every client.
+	//
+	// Parameters: None
+	//
+	// Returns: PrimeStatsIndex: the server's statistics checkpoints
+	//
+	// **************************************************************
+	public PrimeStatsIndex GetStatsIndex() 
+	{
+		return statsIndex;
+	}
+		
+	
+	// ***************************************************************
+	//
+	// Method: QueueTaskExecution
+	//
+	// Description: Called by a client thread to queue a threaded task 
+	//				on the calculation threads. Each client's tasks wait 
+	//				in their own lane and the clients take turns, so 
+	//				one client's big request can't hold up the others.
+	//
+	// Parameters: Object: the client's lane, any object unique to the client
+	//			   Callable: the task to be queued for execution
+	//
+	// Returns: CompletableFuture: the returned result from the task, 
+	//			further steps can be chained onto it instead of waiting
+	//
+	// **************************************************************
+	public <T> CompletableFuture<T> QueueTaskExecution(Object lane, Callable<T> task) 
+	{
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		
+		Runnable queuedTask = () -> 
+		{
+			// skip tasks that were cancelled while queued
+			if (!result.isDone())
+			{
+				try
+				{
+					result.complete(task.call());
+				}
+				catch (Throwable e)
+				{
+					// errors too, or the request would wait forever
+					result.completeExceptionally(e);
+				}
+			}
+		};
+		computeScheduler.Execute(lane, queuedTask, result);
+		
+		return result;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ExtendStatsIndex
+	//
+	// Description: Called by a client thread after a request the 
+	//				statistics checkpoints don't cover yet, so the next 
+	//				request for the range is answered from them. The 
+	//				checkpoints are added in the background by short 
+	//				tasks in their own lane, taking turns with the clients.
+	//
+	// Parameters: long: the integer to cover
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void ExtendStatsIndex(long second) 
+	{
+		// ranges past 2^31 are covered as far as the checkpoints go
+		second = Math.min(second, statsIndex.GetIndexEnd());
+		if (statsIndex.IsCovered(second))
+		{
+			return;
+		}
+		
+		// only start the tasks if they are not already running, 
+		// running tasks pick up the further target
+		if (statsIndexTarget.getAndAccumulate(second, Math::max) < 0)
+		{
+			QueueStatsIndexStep();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: QueueStatsIndexStep
+	//
+	// Description: Queues the next task adding checkpoints, until the 
+	//				target is covered
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void QueueStatsIndexStep() 
+	{
+		QueueTaskExecution(statsIndex, () -> statsIndex.ExtendStep(statsIndexTarget.get(), statsIndexStep))
+				.whenComplete((covered, e) -> 
+				{
+					if (e != null)
+					{
+						System.err.printf("%s while adding statistics checkpoints.\n", e.toString());
+						e.printStackTrace();
+						statsIndexTarget.set(-1);
+						return;
+					}
+					
+					// a client may have asked for more since the target was read
+					long target = statsIndexTarget.get();
+					if (statsIndex.IsCovered(target) && statsIndexTarget.compareAndSet(target, -1))
+					{
+						return;
+					}
+					QueueStatsIndexStep();
+				});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CloseServer
+	//
+	// Description: Closes the server, gracefully shuts down the executor 
+	//				service if possible
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void CloseServer() 
+	{
+		// print server closing
+		System.out.printf("Closing server on port %s...\n",	serverPort);
+		
+		if (metricsJmx != null)
+		{
+			metricsJmx.Unregister();
+		}
+		if (metricsHttp != null)
+		{
+			metricsHttp.Close();
+		}
+		
+		// turn away the clients still waiting in line
+		if (admissionQueue != null)
+		{
+			admissionQueue.Close();
+		}
+		
+		// stop accepting work on the client handler threads
+		if (connectionService != null)
+		{
+			System.out.println(GetConnectionSaturation());
+			connectionService.shutdownNow();
+		}
+		
+		// answers still being sent go nowhere once the clients are gone
+		if (replyService != null)
+		{
+			replyService.shutdownNow();
+		}
+				
+		if (computeService != null)
+		{
+			System.out.println(GetComputeSaturation());
+			
+			// try to close Executor service gracefully
+			computeService.shutdown();
+			try 
+			{
+			    if (!computeService.awaitTermination(1000, TimeUnit.MILLISECONDS)) 
+			    {
+			        computeService.shutdownNow();
+			    } 
+			} 
+			catch (InterruptedException e) 
+			{
+				System.err.printf("Interrupted Exception while while trying to close down Executor service, forcing service shutdown.\n", serverPort);
+				e.printStackTrace();
+			    computeService.shutdownNow();
+			}
+		}
+		
+		
+		// close prime index file
+		if (primeCache != null)
+		{
+			try 
+			{
+				primeCache.Close();
+			}
+			catch (IOException e)
+			{
+				System.err.printf("IO Error while closing prime index file %s.\n", primeIndexFile);
+				e.printStackTrace();
+			}
+		}
+		
+		
+		// close server socket
+		try
+		{
+			if (serverSocket != null && !serverSocket.isClosed())
+				serverSocket.close();
+			
+			// stop the non-blocking front end
+			if (ioThreads != null)
+			{
+				for (int i = 0; i < ioThreads.length; i++)
+				{
+					ioThreads[i].Close();
+				}
+			}
+			if (serverChannel != null && serverChannel.isOpen())
+				serverChannel.close();
+			
+			// print server closing
+			System.out.printf("Server on port $s closed.\n", serverPort);
+		} 
+		catch (Exception e)
+		{
+			if (e instanceof IOException)
+			{
+				System.err.printf("IO Error while closing server on port $s.\n", serverPort);
+				e.printStackTrace();
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while closing server on port $s.\n", serverPort);
+				e.printStackTrace();
+			}
+			
+			// print server closing
+			System.out.printf("Server on port $s not properly closed.\n", serverPort);
+		}
+	}
+		
+	
+	//***************************************************************
+	//
+	//  Method:       developerInfo (Non Static)
+	// 
+	//  Description:  The developer information method of the program
+	//
+	//  Parameters:   None
+	//
+	//  Returns:      N/A 
+	//
+	//**************************************************************
+	public void developerInfo()
+	{
+		System.out.println("Name:    Michael Franklin");
+		System.out.println("Course:  COSC 4301 Modern Programming");
+		System.out.println("Project: Five\n");
+	}
 }
\ No newline at end of file
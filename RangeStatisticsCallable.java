@@ -0,0 +1,123 @@
+//********************************************************************
+//
+//  Developer:           Michael Franklin
+//
+//  Project #:           Five
+//
+//  File Name:           RangeStatisticsCallable.java
+//
+//  Course:              COSC 4301 - Modern Programming
+//
+//  Due Date:            3/13/2022
+//
+//  Instructor:          Fred Kumi
+//
+//  Description:         callable class that finds the statistics (or
+//                       just the count) of the primes in one chunk of a
+//                       range without building the chunk's prime list
+//
+//********************************************************************
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class RangeStatisticsCallable implements Callable<PrimeStatistics>
+{
+	private final int windowSize = 1 << 16; // integers read from the cache at a time
+	private final int countWindowSize = 1 << 20; // integers counted at a time, the cache's far window size
+	
+	private final boolean countOnly;
+	
+	private PrimeCache primeCache;
+	private long first;
+	private long second;
+	private AtomicBoolean cancelled; // set if the request is cancelled, checked between windows
+	private long deadline; // System.nanoTime the request's answers are due by, 0 for no deadline
+
+
+	// statistics constructor
+	public RangeStatisticsCallable(PrimeCache primeCache, long first, long second)
+	{
+		this(primeCache, first, second, false);
+	}
+	
+	// statistics or count constructor
+	public RangeStatisticsCallable(PrimeCache primeCache, long first, long second, boolean countOnly)
+	{
+		this(primeCache, first, second, countOnly, new AtomicBoolean(false), 0);
+	}
+	
+	// cancellable statistics or count constructor, with the request's deadline
+	public RangeStatisticsCallable(PrimeCache primeCache, long first, long second, boolean countOnly, AtomicBoolean cancelled, long deadline)
+	{
+		this.primeCache = primeCache;
+		this.first = first;
+		this.second = second;
+		this.countOnly = countOnly;
+		this.cancelled = cancelled;
+		this.deadline = deadline;
+	}
+
+   //***************************************************************
+   //
+   //  Method:       call
+   //
+   //  Description:  The main method of the callable class
+   //
+   //  Parameters:   None
+   //
+   //  Returns:      PrimeStatistics: the statistics of the chunk's 
+   //                primes (only the count is set if countOnly)
+   //
+   //**************************************************************
+	@Override
+	public PrimeStatistics call() throws Exception
+	{
+		if (countOnly)
+		{
+			// counting reads the cache's bits directly, a large window 
+			// at a time so the request can be cancelled between them
+			long count = 0;
+			for (long windowFirst = first; windowFirst <= second; windowFirst += countWindowSize)
+			{
+				CheckCancelled();
+				count += primeCache.CountPrimes(windowFirst, Math.min(second, windowFirst + countWindowSize - 1));
+			}
+			return new PrimeStatistics(count);
+		}
+		
+		// read the chunk a small window at a time so only one window's 
+		// primes are ever held at once
+		PrimeStatistics stats = new PrimeStatistics();
+		for (long windowFirst = first; windowFirst <= second; windowFirst += windowSize)
+		{
+			CheckCancelled();
+			long windowSecond = Math.min(second, windowFirst + windowSize - 1);
+			long[] primes = primeCache.GetPrimes(windowFirst, windowSecond);
+			stats.AddAll(primes, 0, primes.length);
+		}
+		
+		return stats;
+	}
+
+   //***************************************************************
+   //
+   //  Method:       CheckCancelled
+   //
+   //  Description:  stops the task if its request was cancelled or is
+   //                past its deadline
+   //
+   //  Parameters:   None
+   //
+   //  Returns:      N/A
+   //
+   //**************************************************************
+	private void CheckCancelled()
+	{
+		if (cancelled.get() || (deadline != 0 && System.nanoTime() - deadline >= 0))
+		{
+			throw new CancellationException("Request cancelled.");
+		}
+	}
+}
@@ -0,0 +1,124 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     SerialExecutor.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Runs tasks one at a time, in the order they are given,
+//				   on threads shared with other executors like it. Each
+//				   client sends its answers through one, so a client that
+//				   reads its answers slowly holds up only its own replies
+//				   and at most one of the shared threads.
+//
+//
+//******************************************************************************
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class SerialExecutor implements Executor
+{
+	private Executor threads; // the shared threads the tasks run on
+	private ArrayDeque<Runnable> tasks; // tasks waiting for the ones before them (guarded by this)
+	private boolean running; // true while a shared thread is running this executor's tasks (guarded by this)
+	
+	
+	public SerialExecutor(Executor threads)
+	{
+		this.threads = threads;
+		tasks = new ArrayDeque<Runnable>();
+		running = false;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: execute
+	//
+	// Description: queues a task to run after every task given before
+	//				it, taking a shared thread if none is running them
+	//
+	// Parameters: Runnable: the task
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void execute(Runnable task)
+	{
+		synchronized(this)
+		{
+			tasks.addLast(task);
+			if (running)
+			{
+				return;
+			}
+			running = true;
+		}
+		
+		try
+		{
+			threads.execute(this::RunTasks);
+		}
+		catch (RejectedExecutionException e)
+		{
+			// the server is closing, nothing more will run
+			synchronized(this)
+			{
+				running = false;
+				tasks.clear();
+			}
+			throw e;
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RunTasks
+	//
+	// Description: runs the waiting tasks in order on one shared thread
+	//				until there are none left
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void RunTasks()
+	{
+		while (true)
+		{
+			Runnable task;
+			synchronized(this)
+			{
+				task = tasks.pollFirst();
+				if (task == null)
+				{
+					running = false;
+					return;
+				}
+			}
+			
+			try
+			{
+				task.run();
+			}
+			catch (Throwable e)
+			{
+				// one task failing doesn't stop the ones after it
+				System.err.printf("%s while running a queued task on thread %s.\n", e.toString(), Thread.currentThread().getName());
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -1,684 +1,2115 @@
-//******************************************************************************
-//
-//  Developer:     Michael Franklin
-//
-//  Project #:     Project 5
-//
-//  File Name:     ServerClient.java
-//
-//  Course:        COSC 4301 - Modern Programming
-//
-//  Due Date:      03/13/2022
-//
-//  Instructor:    Fred Kumi 
-//
-//  Description:   Client handler for the server side of Project 5.
-//
-//
-//******************************************************************************
-
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.EOFException;
-import java.io.IOException;
-import java.net.Socket;
-import java.net.SocketException;
-import java.util.ArrayList;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-
-public class ServerClient implements Runnable
-{
-	private final String closeCommand = "Bye";
-	private final int packageSize = 10; // number of primes to send per response, if prime list gets too big
-	private final String packageDelimiter = "~";
-	private final String connectionToken = "y";
-	
-	private Project5Server server;
-	private Socket clientSocket;
-	private DataOutputStream dataOutStream;
-	private DataInputStream dataInStream;
-	private boolean disconnect; // true if server is full
-	
-	public ServerClient(Socket socket, Project5Server server, boolean disconnect)
-	{
-		clientSocket = socket;
-		this.server = server;
-		this.disconnect = disconnect;
-	}
-	
-	public ServerClient(Socket socket, Project5Server server)
-	{
-		clientSocket = socket;
-		this.server = server;
-		this.disconnect = false;
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: run
-	//
-	// Description: The main method of the server client handler
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	@Override
-	public void run()
-	{
-		// setup client
-		SetupClient();
-		
-		// if we do not need to disconnect the client right away
-		if (!disconnect)
-		{
-			// send that we are fully connected to the client
-			SendData(connectionToken);
-			
-			String input = "";
-			// while no closing command has been sent and the socket is still open
-			while (!input.equals(closeCommand) && !clientSocket.isClosed()) 
-			{
-				// wait for input from the client
-				input = GetClientData();
-
-				// if input is not the close connection command and socket is still open
-				if (!input.equals(closeCommand) && !clientSocket.isClosed()) 
-				{
-					// parse and validate input
-					ArrayList<Integer> numList = ParseClientData(input);
-
-					// if we got valid data and socket is still open
-					if (numList.size() != 0 && !clientSocket.isClosed())
-					{
-						// calculate sum, mean and standard deviation
-						// then send to client
-						CalculateOutput(numList);
-					}
-				}
-			}
-		}
-		else
-		{
-			// server is full disconnect client right away
-			SendData("xServer is full, please try again later");
-		}
-		
-		// if the socket is still open
-		if (!clientSocket.isClosed())
-		{
-			// send a closing statement to client
-			SendData("xServer closing Connection.");
-		}
-		
-		// close connection to client
-		CloseConnection();	
-	}
-
-	
-	// ***************************************************************
-	//
-	// Method: SetupClient
-	//
-	// Description: sets up data streams and client socket.
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void SetupClient()
-	{
-		try 
-		{			
-			// client connected successful
-			// open output stream to the client
-			dataOutStream = new DataOutputStream(clientSocket.getOutputStream());
-			
-			// open input stream from the client
-			dataInStream = new DataInputStream(clientSocket.getInputStream());
-			
-			// print client socket setup successful
-			System.out.printf("\nClient connected:\nIP:%s\nPort:%d\n",
-					clientSocket.getInetAddress().toString(),
-					clientSocket.getPort());
-		} 
-		catch (Exception e) 
-		{
-			if (e instanceof IOException) 
-			{
-				System.err.printf("IO Error while setting up client on port %d.\n", clientSocket.getPort());
-				e.printStackTrace();
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while setting up client on port %d.\n", clientSocket.getPort());
-				e.printStackTrace();
-			}
-			// error, close the client connection
-			CloseConnection();
-		}
-	}
-
-	
-	// ***************************************************************
-	//
-	// Method: PackageData
-	//
-	// Description: Sends large data to a client by first packaging it into 
-	//				smaller chunks then sending each chunk
-	//
-	// Parameters: double: sum to send
-	//			   double: mean to send
-	//			   double: standard deviation to send
-	//			   ArrayList<Double>: list of primes to send
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void PackageData(double sum, double mean, double stdev, ArrayList<Integer> primeList)
-	{		
-		// send the first three items, the answers, to the client
-		SendData(sum + "," + mean + "," + stdev);
-		
-		// send the list of primes in chunks if it is too big
-		for (int i = 0; i < primeList.size();)
-		{
-			StringBuilder outputString = new StringBuilder();
-			// send packageSize number of primes at a time
-			for (int count = 0; count < packageSize && i < primeList.size();count++)
-			{
-				// if we have reached the end data append a delimiter
-				// to tell the client to stop listening for more data
-				if (i == primeList.size()-1)
-				{
-					// append last item to outputString
-					outputString.append(primeList.get(i) + "," + packageDelimiter);
-				}
-				// if we have reached the end of the chunk don't add a comma
-				else if (count == packageSize-1)
-				{
-					// append item to outputString
-					outputString.append(primeList.get(i));
-				}
-				else
-				{
-					// append item to outputString
-					outputString.append(primeList.get(i) + ",");
-				}
-				
-				// increment index
-				i++;
-			}
-			// send the chunk to the client
-			SendData(outputString.toString());
-		}
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: SendData
-	//
-	// Description: Sends the passed string to the client
-	//
-	// Parameters: String: data to be sent to the client
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void SendData(String data)
-	{
-		try 
-		{
-			dataOutStream.writeUTF(data);
-		}
-		catch (IOException e) 
-		{
-			System.err.printf("IO Error while sending data to client on port %d.\n", clientSocket.getPort());
-			e.printStackTrace();
-			// not a critical error, no need to quit
-			// error, close the client connection
-			CloseConnection();
-		}
-	}
-	
-
-	// ***************************************************************
-	//
-	// Method: GetClientData
-	//
-	// Description: waits for and accepts data from the client
-	//
-	// Parameters: None
-	//
-	// Returns: String: data from client
-	//
-	// **************************************************************
-	public String GetClientData()
-	{
-		String data = "";
-		try
-		{
-			data = dataInStream.readUTF();
-		}
-		catch (Exception e) 
-		{
-			if (e instanceof SocketException) 
-			{
-				System.out.printf("Client on port %d disconnected unexpectedly. Closing the connection fully.\n", clientSocket.getPort());
-				// not a critical error, no need to quit
-			}
-			else if (e instanceof IOException) 
-			{
-				System.out.printf("IO Error while reading data from client on port %d.\n", clientSocket.getPort());
-				e.printStackTrace();
-				// not a critical error, no need to quit
-			}
-			else if (e instanceof EOFException) 
-			{
-				System.out.printf("End of Field Error while reading data from client on port %d.\n", clientSocket.getPort());
-				e.printStackTrace();
-				// not a critical error, no need to quit
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while reading data from client on port %d.\n", clientSocket.getPort());
-				e.printStackTrace();
-				// not a critical error, no need to quit
-			}
-			// error, close the client connection
-			CloseConnection();
-		}
-		
-		return data;
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: ParseClientData
-	//
-	// Description: parses and validates client input, producing a 
-	//				list of integers to use for calculations based on 
-	//				valid input
-	//
-	// Parameters: String: string input from client
-	//
-	// Returns: Double ArrayList: array of integers to use in 
-	//			calculations
-	//
-	// **************************************************************
-	public ArrayList<Integer> ParseClientData(String data)
-	{
-		ArrayList<Integer> numList = new ArrayList<Integer>();
-		
-		try
-		{
-			// first check that input has comma separation
-			if (data.contains(","))
-			{
-				String intsString[] = data.split(",");
-				
-				// check if we got two items
-				if (intsString.length == 2)
-				{
-					// try to parse ints
-					int first = Integer.parseInt(intsString[0]);
-					int second = Integer.parseInt(intsString[1]);
-					
-					// check that ints meet requirements and build list		
-					numList = GenerateList(first, second);
-				}
-				else
-				{
-					// not two integers
-					SendData("xPlease input two integers.");
-				}
-			}
-			else
-			{
-				// no commas print error to client
-				SendData("xPlease use commas to seperate your integers.\n");
-			}
-		}
-		catch (Exception e)
-		{
-			if (e instanceof SocketException) 
-			{
-				System.out.printf("Client on port %d disconnected unexpectedly. Closing the connection fully.\n", clientSocket.getPort());
-				// not a critical error, no need to quit
-				// close the client connection
-				CloseConnection();
-			}
-			else if (e instanceof NumberFormatException) 
-			{
-				// error during parsing of integers		
-				//System.out.printf("Number Format Error while parsing data from client on port %d.\n", clientSocket.getPort());
-				SendData("xPlease input two integers.");
-				// not a critical error, no need to quit
-			}
-			else
-			{
-				System.err.printf("Unhandled exception while parsing data from client on port %d.\n", clientSocket.getPort());
-				e.printStackTrace();
-				// not a critical error, no need to quit
-				// parse failed send error to client
-				SendData("xParse Error, please try again.");
-			}
-		}
-		
-		return numList;
-	}
-		
-
-	// ***************************************************************
-	//
-	// Method: GenerateList
-	//
-	// Description: takes in the two parsed ints, validates their values 
-	//				and builds and returns the corresponding list of 
-	//				prime integers (using threaded tasks).
-	//
-	// Parameters:  int: first input from client
-	//				int: second input from client
-	//
-	// Returns: Integer ArrayList: array of prime integers to use in 
-	//			calculations
-	//
-	// **************************************************************
-	public ArrayList<Integer> GenerateList(int first, int second)
-	{
-		ArrayList<Integer> numList = new ArrayList<Integer>();
-		
-		// first check if any integer is less than or equal to0
-		if (first <= 0 || second <= 0)
-		{
-			// output error to client
-			SendData("xAll the integers must be greater than zero.");
-		}
-		// next check if the second input is not greater than the first input
-		else if (second <= first)
-		{
-			// output error to client
-			SendData("xThe first integer must be less than the second.");
-		}
-		else
-		{
-			// everything checks out, build the list starting at the first 
-			// number and ending at the second
-			// first, check the list for primes
-			ArrayList<Future<Boolean>> primes = new ArrayList<Future<Boolean>>();
-			ArrayList<Boolean> resultChecked = new ArrayList<Boolean>();
-			for (int i = (int)first ; i <= second; i++)
-			{
-				// check if the number is prime
-				// ask the server to queue this check
-				synchronized(server) 
-				{
-					primes.add(server.QueueTaskExecution(new PrimeTestCallable(i)));
-					resultChecked.add(false);
-		       }
-			}
-			
-			// add all found primes to numList
-			// This logic allows the thread to never be blocked waiting on a result
-			int resultsCount = 0;
-			//int primeIndex = 0;
-			boolean noError = true;
-			while (resultsCount < primes.size())
-			{
-				try
-				{
-					if (!resultChecked.get(resultsCount) && primes.get(resultsCount).isDone())
-					{
-						// check if int at index is prime
-						if (primes.get(resultsCount).get())
-						{
-							// int is prime add i to first int given by client to get the true value
-							numList.add(resultsCount + first);
-						}
-						// task complete, got a result
-						resultChecked.set(resultsCount, true);
-						resultsCount++;
-					}
-				}
-				catch(Exception e)
-				{
-					if (e instanceof InterruptedException)
-					{
-						System.err.printf("%s while trying to retrieve prime number for client on port %s.\n",e.toString(),clientSocket.getPort());
-						e.printStackTrace();
-					}
-					else if (e instanceof CancellationException)
-					{
-						// future was cancelled before we got a result
-						System.err.printf("Thread cancellation while trying to retrieve prime number for client on port %s.\n",clientSocket.getPort());
-						e.printStackTrace();
-					}
-					else if (e instanceof ExecutionException)
-					{
-						// future's thread throw an exception
-						// print it
-						System.err.printf("%s while trying to retrieve prime number for client on port %s.\n",e.getCause().toString(),clientSocket.getPort());
-						e.getCause().printStackTrace();
-					}
-					// clear the bad prime list
-					primes.clear();
-					
-					// stop looking for primes due to error
-					resultsCount = primes.size();
-					noError = false;
-					// send error to client
-					SendData("xError while gathering primes, please try again.");
-				}
-				
-				// increment primeIndex to check next task
-				/*primeIndex++;
-				if (primeIndex >= primes.size())
-					primeIndex = 0;*/
-			}
-			
-			// check if we still have an empty list
-			if (numList.size() == 0 && noError)
-			{
-				// send message to client to try different numbers
-				SendData(String.format(
-						"xNo prime integers between %d and %d. Please try different integers.\n",
-						first,
-						second
-						));
-			}
-		}
-		return numList;
-	}
-	
-
-	// ***************************************************************
-	//
-	// Method: CalculateOutput
-	//
-	// Description: calculates the sum, mean, and standard deviation of a 
-	// 				passed list of integers.
-	//
-	// Parameters:  Integer ArrayList: array of integers to use in 
-	//				calculations
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void CalculateOutput(ArrayList<Integer> numList) 
-	{		
-		try
-		{
-			double sum = 0;
-			double mean = 0;
-			double stdev = 0;
-			boolean Done = false;
-			
-			// setup calculation tasks
-			Future<Double> result;
-
-			// calculate sum
-			synchronized(server) 
-			{
-				result = server.QueueTaskExecution(new CalculationCallable(numList));
-			}
-
-			while (!Done)
-			{
-				if (result.isDone())
-				{
-					sum = result.get();
-					Done = true;
-				}
-			}
-
-			// calculate mean
-			synchronized(server) 
-			{
-				result = server.QueueTaskExecution(new CalculationCallable(sum,numList.size()));
-			}
-			
-			Done = false;
-			while (!Done)
-			{
-				if (result.isDone())
-				{
-					mean = result.get();
-					Done = true;
-				}
-			}
-
-			// calculate standard deviation
-			synchronized(server) 
-			{
-				result = server.QueueTaskExecution(new CalculationCallable(mean,numList));
-			}
-			
-			Done = false;
-			while (!Done)
-			{
-				if (result.isDone())
-				{
-					stdev = result.get();
-					Done = true;
-				}
-			}
-
-			// send data to client
-			PackageData(sum, mean, stdev, numList);
-		}
-		catch(Exception e)
-		{
-			if (e instanceof InterruptedException)
-			{
-				System.err.printf("%s while trying to process prime integer calculatoins for client on port %s.\n", 
-						e.toString(),
-						clientSocket.getPort());
-				e.printStackTrace();
-				
-			}
-			else if (e instanceof CancellationException)
-			{
-				// future was cancelled before we got a result
-				System.err.printf("Thread cancellation while trying to process prime integer calculatoins for client on port %s.\n",
-						clientSocket.getPort());
-				e.printStackTrace();
-			}
-			else if (e instanceof ExecutionException)
-			{
-				// future's thread throw an exception
-				// print it
-				System.err.printf("%s while trying to process prime integer calculatoins for client on port %s", 
-						e.getCause().toString(),
-						clientSocket.getPort());
-				e.getCause().printStackTrace();
-			}
-			else
-			{
-				// future's thread throw an exception
-				// print it
-				System.err.printf("%s while trying to process prime integer calculatoins for client on port %s", 
-						e.toString(),
-						clientSocket.getPort());
-				e.printStackTrace();
-			}
-			// Send an error to the user and ask for new input
-			SendData("xError while calculating answers. Please try again.");
-		}		
-	}
-	
-	
-	// ***************************************************************
-	//
-	// Method: CloseConnection
-	//
-	// Description: Closes all client streams and the connection to 
-	//				the client
-	//
-	// Parameters: None
-	//
-	// Returns: N/A
-	//
-	// **************************************************************
-	public void CloseConnection() 
-	{
-		// if the socket is still open
-		if (!clientSocket.isClosed())
-		{
-			try
-			{		
-				// print client socket closing
-				System.out.printf("\nClient disconnected:\nIP:%s\nPort:%d\n",
-						clientSocket.getInetAddress().toString(),
-						clientSocket.getPort());
-				
-				// close client socket data streams
-				dataOutStream.close();
-				dataInStream.close();
-				
-				// close connection to client
-				clientSocket.close();			
-			} 
-			catch (Exception e)
-			{
-				if (e instanceof IOException)
-				{
-					System.err.printf("IO Error while closing connection to %s on port %d.\n", clientSocket.getInetAddress().toString(), clientSocket.getPort());
-					e.printStackTrace();
-					// not a critical error, no need to quit
-					// don't shut down server, just wait for new client
-				}
-				else if (e instanceof NullPointerException)
-				{
-					System.err.printf("Connection not fully closed properly for client at %s on port %d.\n", clientSocket.getInetAddress().toString(), clientSocket.getPort());
-					//e.printStackTrace();
-					// not a critical error, no need to quit
-					// don't shut down server, just wait for new client
-				}
-				else
-				{
-					System.err.printf("Unhandled exception while closing connection to %s on port %d.\n", clientSocket.getInetAddress().toString(), clientSocket.getPort());
-					e.printStackTrace();
-					// not a critical error, no need to quit
-					// don't shut down server, just wait for new client
-				}
-			}
-		}
-		
-		// if this was a "fully connected" client
-		if (!disconnect)
-		{
-			// notify server of client disconnect
-			synchronized(server) {
-				server.ClientDisconnected();
-	       }
-		}
-	}
-
-}
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     ServerClient.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi 
+//
+//  Description:   Client handler for the server side of Project 5.
+//
+//
+//******************************************************************************
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+public class ServerClient implements Runnable
+{
+	private final String closeCommand = "Bye";
+	private final int packageSize = 10; // number of primes to send per response, if prime list gets too big
+	private final String packageDelimiter = "~";
+	private final String connectionToken = "y";
+	private final String binaryCommand = "binary"; // switches replies to the binary protocol
+	private final String streamCommand = "stream"; // switches to streamed answers
+	private final String summaryMarker = "="; // starts the answers that end a streamed answer
+	private final String statsPrefix = "stats:"; // request for only the sum, mean and standard deviation
+	private final String countPrefix = "count:"; // request for only the number of primes
+	private final String pagePrefix = "page:"; // request for the answers and a cursor to page through the primes
+	private final String nextPrefix = "next:"; // request for the page of primes at a cursor
+	private final String cursorMarker = "@"; // starts the cursor that ends a paged answer
+	private final String cursorDelimiter = "."; // separates the fields of a cursor
+	private final int maxPageSize = 1 << 20; // largest number of primes per page
+	private final String tagMarker = "#"; // starts a pipelined request's tag, "#tag:request"
+	private final String tagDelimiter = ":"; // ends a pipelined request's tag
+	private final int maxPipelinedRequests = 64; // most pipelined requests one client can have running
+	private final long maxTaggedListRange = 1L << 22; // largest range of integers whose primes a pipelined request can list
+	private final int maxTaggedPageSize = 1 << 16; // largest number of primes per page of a pipelined request
+	private final int maxStreamChunkSize = 1 << 22; // largest range of integers per streamed chunk
+	private final int minChunkSize = 65536; // smallest range of integers to give a single prime task
+	private final int maxChunkSize = 1 << 22; // largest range of integers to give a single task, so other clients get a turn soon
+	private final int minSliceSize = 16384; // smallest number of primes to give a single statistics task
+	private final long maxInteger = Long.MAX_VALUE / 2; // largest integer of a range, chunk and window ends never overflow
+	private final long maxListRange = 1L << 31; // largest range of integers whose primes are sent as one list
+	private final String cancelCommand = "cancel"; // stops the tasks of every request still being answered
+	private final String cancelledMessage = "xRequest cancelled.";
+	private final String deadlinePrefix = "deadline:"; // starts a request's deadline, "deadline:milliseconds:request"
+	private final String deadlineDelimiter = ":"; // ends a request's deadline
+	private final String partialMarker = "partial:"; // starts the last integer answered when the deadline cut a reply short
+	
+	private Project5Server server;
+	private Socket clientSocket;
+	private DataOutputStream dataOutStream;
+	private DataInputStream dataInStream;
+	private boolean disconnect; // true if server is full
+	private AtomicBoolean disconnectReported; // true once the server has been told the client left
+	private volatile boolean binaryProtocol; // true once the client asks for binary replies
+	private volatile boolean streamReplies; // true once the client asks for streamed answers
+	private boolean tagged; // true for a pipelined request, its answer is held whole until it is sent
+	private ArrayList<CompletableFuture<Void>> pipelinedRequests; // tagged requests still being answered
+	private ServerClient connection; // the client's own handler, pipelined answers share its tasks
+	private SerialExecutor replyLane; // sends the client's answers one at a time, off the calculation threads
+	private ReentrantLock sendLock; // keeps each message to the client whole
+	private Set<CompletableFuture<?>> runningTasks; // tasks queued for the client and not yet done
+	private volatile AtomicBoolean cancelFlag; // set when the client's requests are cancelled, replaced after
+	private long deadline; // System.nanoTime the request's answers are due by, 0 for no deadline
+	private long partialEnd; // last integer answered when the deadline cut the request short, -1 if it did not
+	
+	// writes one message to the client's stream, see Send
+	private interface ReplyWriter
+	{
+		void Write(DataOutputStream out) throws IOException;
+	}
+	
+	public ServerClient(Socket socket, Project5Server server, boolean disconnect)
+	{
+		clientSocket = socket;
+		this.server = server;
+		this.disconnect = disconnect;
+		disconnectReported = new AtomicBoolean(false);
+		pipelinedRequests = new ArrayList<CompletableFuture<Void>>();
+		connection = this;
+		runningTasks = ConcurrentHashMap.newKeySet();
+		cancelFlag = new AtomicBoolean(false);
+		replyLane = new SerialExecutor(server.GetReplyService());
+		sendLock = new ReentrantLock();
+	}
+	
+	public ServerClient(Socket socket, Project5Server server)
+	{
+		this(socket, server, false);
+	}
+	
+	// non-blocking connection constructor, data sent to the client is 
+	// written to outStream instead of the socket's own stream
+	public ServerClient(Socket socket, Project5Server server, OutputStream outStream)
+	{
+		this(socket, server, false);
+		dataOutStream = new DataOutputStream(outStream);
+		
+		// print client socket setup successful
+		System.out.printf("\nClient connected:\nIP:%s\nPort:%d\n",
+				clientSocket.getInetAddress().toString(),
+				clientSocket.getPort());
+	}
+	
+	// pipelined request constructor, the answer to one tagged request is 
+	// written to replyStream in the client's current reply modes
+	private ServerClient(ServerClient client, OutputStream replyStream)
+	{
+		this(client.clientSocket, client.server, false);
+		dataOutStream = new DataOutputStream(replyStream);
+		binaryProtocol = client.binaryProtocol;
+		streamReplies = client.streamReplies;
+		tagged = true;
+		connection = client.connection;
+		replyLane = client.replyLane;
+		
+		// the client's own handler reports the disconnect
+		disconnectReported.set(true);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: run
+	//
+	// Description: The main method of the server client handler
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void run()
+	{
+		// setup client
+		SetupClient();
+		
+		// if we do not need to disconnect the client right away
+		if (!disconnect)
+		{
+			// send that we are fully connected to the client
+			SendData(connectionToken);
+			
+			String input = "";
+			CompletableFuture<Void> request = CompletableFuture.completedFuture(null);
+			// while no closing command has been sent and the socket is still open
+			while (!input.equals(closeCommand) && !clientSocket.isClosed()) 
+			{
+				// wait for input from the client, read while the last 
+				// request is still being answered so a cancel command 
+				// or a disconnect stops its tasks right away
+				input = GetClientData();
+				
+				if (input.equals(cancelCommand))
+				{
+					// the cancelled requests answer with the cancelled message
+					CancelTasks();
+				}
+				// if input is not the close connection command and socket is still open
+				else if (!input.equals(closeCommand) && !clientSocket.isClosed()) 
+				{
+					// handle the request once the last one is answered, this 
+					// thread sleeps until then instead of polling the tasks. 
+					// Tagged requests only wait to be started.
+					request.join();
+					request = HandleRequest(input);
+				}
+			}
+			
+			// answer the last request and any pipelined requests still running
+			request.join();
+			WaitForPipelined().join();
+		}
+		else
+		{
+			// server is full disconnect client right away
+			SendData("xServer is full, please try again later");
+		}
+		
+		// if the socket is still open
+		if (!clientSocket.isClosed())
+		{
+			// send a closing statement to client
+			SendData("xServer closing Connection.");
+		}
+		
+		// close connection to client
+		CloseConnection();	
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: SendConnectionToken
+	//
+	// Description: tells the client it is fully connected, used by 
+	//				connections that are not run by this class's run method
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendConnectionToken()
+	{
+		SendData(connectionToken);
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: GetReplyLane
+	//
+	// Description: gets the lane the client's answers are sent from, 
+	//				used by connections that are not run by this class's 
+	//				run method to answer requests off their own thread
+	//
+	// Parameters: None
+	//
+	// Returns: Executor: the client's reply lane
+	//
+	// **************************************************************
+	public Executor GetReplyLane()
+	{
+		return replyLane;
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: IsCancelCommand
+	//
+	// Description: checks if a request is the cancel command, used by 
+	//				connections that are not run by this class's run method 
+	//				to cancel without waiting for the requests before it
+	//
+	// Parameters: String: request from the client
+	//
+	// Returns: boolean: true if the request is the cancel command
+	//
+	// **************************************************************
+	public boolean IsCancelCommand(String input)
+	{
+		return input.equals(cancelCommand);
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: CancelTasks
+	//
+	// Description: cancels every task queued for the client's requests, 
+	//				including pipelined ones. Tasks still waiting for a 
+	//				calculation thread are skipped, running tasks that 
+	//				check the cancel flag stop at their next window. Each 
+	//				cancelled request answers with the cancelled message.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void CancelTasks()
+	{
+		// requests started after this get a new flag
+		AtomicBoolean cancelled = connection.cancelFlag;
+		connection.cancelFlag = new AtomicBoolean(false);
+		cancelled.set(true);
+		
+		for (CompletableFuture<?> task : connection.runningTasks)
+		{
+			task.cancel(false);
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: QueueTask
+	//
+	// Description: asks the server to queue a task in the client's lane 
+	//				and keeps it until it is done so it can be cancelled
+	//
+	// Parameters: Callable: the task
+	//
+	// Returns: CompletableFuture: the task's result
+	//
+	// **************************************************************
+	private <T> CompletableFuture<T> QueueTask(Callable<T> task)
+	{
+		CompletableFuture<T> result = server.QueueTaskExecution(clientSocket, task);
+		
+		// added before the removal is chained, a task that is already 
+		// done is removed straight away
+		connection.runningTasks.add(result);
+		result.whenComplete((done, e) -> connection.runningTasks.remove(result));
+		return result;
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: IsCancelled
+	//
+	// Description: checks if a request failed because it was cancelled
+	//
+	// Parameters: Throwable: the request's exception, unwrapped
+	//
+	// Returns: boolean: true if the request was cancelled
+	//
+	// **************************************************************
+	private boolean IsCancelled(Throwable cause)
+	{
+		return cause instanceof CancellationException;
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: HandleRequest
+	//
+	// Description: handles a request read from the client. Requests 
+	//				tagged "#tag:request" are pipelined, they run at the 
+	//				same time as the requests after them and their answers 
+	//				are sent whole, after the tag, as soon as each is 
+	//				done, so they may arrive in any order. Untagged 
+	//				requests wait for the pipelined requests before them 
+	//				and are answered in order.
+	//
+	// Parameters: String: request from the client
+	//
+	// Returns: CompletableFuture: completes once the next request can 
+	//			be read
+	//
+	// **************************************************************
+	public CompletableFuture<Void> HandleRequest(String input)
+	{
+		int tagEnd = input.indexOf(tagDelimiter);
+		if (!input.startsWith(tagMarker) || tagEnd <= tagMarker.length())
+		{
+			return WaitForPipelined().thenCompose(done -> HandleInput(input));
+		}
+		
+		String tag = input.substring(tagMarker.length(), tagEnd);
+		String request = input.substring(tagEnd + tagDelimiter.length());
+		
+		// build the answer in its own buffer so it can be sent whole
+		ByteArrayOutputStream replyBuffer = new ByteArrayOutputStream();
+		ServerClient reply = new ServerClient(this, replyBuffer);
+		CompletableFuture<Void> answer;
+		
+		if (request.equals(binaryCommand) || request.equals(streamCommand))
+		{
+			// reply modes are for the whole connection
+			reply.SendData("xReply mode commands can not be pipelined.");
+			answer = CompletableFuture.completedFuture(null);
+		}
+		else
+		{
+			answer = reply.HandleInput(request);
+		}
+		
+		CompletableFuture<Void> sent = answer.handleAsync((done, e) -> 
+		{
+			SendTagged(tag, replyBuffer.toByteArray());
+			return null;
+		}, replyLane);
+		
+		synchronized(pipelinedRequests)
+		{
+			pipelinedRequests.removeIf(pipelined -> pipelined.isDone());
+			pipelinedRequests.add(sent);
+			
+			// too many running, wait for one to finish before reading more
+			if (pipelinedRequests.size() >= maxPipelinedRequests)
+			{
+				return CompletableFuture.anyOf(pipelinedRequests.toArray(new CompletableFuture<?>[0])).thenApply(done -> null);
+			}
+		}
+		
+		return CompletableFuture.completedFuture(null);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WaitForPipelined
+	//
+	// Description: waits for every pipelined request started so far to 
+	//				be answered
+	//
+	// Parameters: None
+	//
+	// Returns: CompletableFuture: completes once they are all answered
+	//
+	// **************************************************************
+	public CompletableFuture<Void> WaitForPipelined()
+	{
+		synchronized(pipelinedRequests)
+		{
+			pipelinedRequests.removeIf(pipelined -> pipelined.isDone());
+			return CompletableFuture.allOf(pipelinedRequests.toArray(new CompletableFuture<?>[0]));
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: HandleInput
+	//
+	// Description: parses and validates a request from the client, then 
+	//				once the list is built calculates sum, mean and 
+	//				standard deviation and sends them to the client. 
+	//				Also handles the commands that switch reply modes.
+	//
+	// Parameters: String: request from the client
+	//
+	// Returns: CompletableFuture: completes once the answer is sent
+	//
+	// **************************************************************
+	public CompletableFuture<Void> HandleInput(String input)
+	{
+		server.GetMetrics().RequestReceived();
+		
+		// requests with a deadline answer for the part of their range 
+		// that is done by then, "deadline:milliseconds:request"
+		deadline = 0;
+		partialEnd = -1;
+		if (input.startsWith(deadlinePrefix))
+		{
+			int deadlineEnd = input.indexOf(deadlineDelimiter, deadlinePrefix.length());
+			long milliseconds = -1;
+			try
+			{
+				milliseconds = Long.parseLong(input.substring(deadlinePrefix.length(), Math.max(deadlinePrefix.length(), deadlineEnd)));
+			}
+			catch (NumberFormatException e)
+			{
+				// reported below
+			}
+			if (deadlineEnd < 0 || milliseconds <= 0 || milliseconds > TimeUnit.DAYS.toMillis(1))
+			{
+				SendData("xThe deadline must be a number of milliseconds from 1 to 86400000, as in \"deadline:500:1,1000000\".");
+				return CompletableFuture.completedFuture(null);
+			}
+			
+			deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(milliseconds);
+			input = input.substring(deadlineEnd + deadlineDelimiter.length());
+		}
+		
+		// client is asking for binary replies from now on
+		if (input.equals(binaryCommand))
+		{
+			// confirm in text, then switch
+			SendData(connectionToken);
+			binaryProtocol = true;
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		// client is asking for primes to be sent as they are found
+		if (input.equals(streamCommand))
+		{
+			SendData(connectionToken);
+			streamReplies = true;
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		// requests that only want the answers, not the primes
+		if (input.startsWith(statsPrefix) || input.startsWith(countPrefix))
+		{
+			boolean countOnly = input.startsWith(countPrefix);
+			long[] range = ParseRange(input.substring(countOnly ? countPrefix.length() : statsPrefix.length()));
+			return range == null ? CompletableFuture.completedFuture(null) : CalculateRange(range[0], range[1], countOnly);
+		}
+		
+		// paged requests, the answers first then one page of primes at a time
+		if (input.startsWith(pagePrefix))
+		{
+			long[] request = ParsePageRequest(input.substring(pagePrefix.length()));
+			return request == null ? CompletableFuture.completedFuture(null) : StartPages(request[0], request[1], (int)request[2]);
+		}
+		if (input.startsWith(nextPrefix))
+		{
+			long[] cursor = ParseCursor(input.substring(nextPrefix.length()));
+			return cursor == null ? CompletableFuture.completedFuture(null) : SendPage(cursor[0], cursor[1], (int)cursor[2]);
+		}
+		
+		if (streamReplies)
+		{
+			long[] range = ParseRange(input);
+			return range == null ? CompletableFuture.completedFuture(null) : StreamList(range[0], range[1]);
+		}
+		
+		return ParseClientData(input).thenCompose(numList -> 
+		{
+			// if we got valid data and socket is still open
+			if (numList.length != 0 && !clientSocket.isClosed())
+			{
+				return CalculateOutput(numList);
+			}
+			return CompletableFuture.completedFuture(null);
+		});
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: SetupClient
+	//
+	// Description: sets up data streams and client socket.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SetupClient()
+	{
+		try 
+		{			
+			// client connected successful
+			// replies are written whole, send them without waiting to 
+			// fill a packet
+			clientSocket.setTcpNoDelay(true);
+			
+			// open output stream to the client
+			// every write to the client is timed as the send latency
+			dataOutStream = new DataOutputStream(new TimedOutputStream(clientSocket.getOutputStream(), server.GetMetrics()));
+			
+			// open input stream from the client
+			dataInStream = new DataInputStream(clientSocket.getInputStream());
+			
+			// print client socket setup successful
+			System.out.printf("\nClient connected:\nIP:%s\nPort:%d\n",
+					clientSocket.getInetAddress().toString(),
+					clientSocket.getPort());
+		} 
+		catch (Exception e) 
+		{
+			if (e instanceof IOException) 
+			{
+				System.err.printf("IO Error while setting up client on port %d.\n", clientSocket.getPort());
+				e.printStackTrace();
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while setting up client on port %d.\n", clientSocket.getPort());
+				e.printStackTrace();
+			}
+			// error, close the client connection
+			CloseConnection();
+		}
+	}
+
+	
+	// ***************************************************************
+	//
+	// Method: PackageData
+	//
+	// Description: Sends large data to a client by first packaging it into 
+	//				smaller chunks then sending each chunk
+	//
+	// Parameters: double: sum to send
+	//			   double: mean to send
+	//			   double: standard deviation to send
+	//			   long array: list of primes to send
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void PackageData(double sum, double mean, double stdev, long[] primeList)
+	{		
+		// binary replies send the answers as doubles and the primes as 
+		// gaps, no strings are built
+		if (binaryProtocol)
+		{
+			Send(out -> 
+			{
+				BinaryProtocol.WriteStatistics(out, sum, mean, stdev);
+				BinaryProtocol.WritePrimes(out, primeList, 0, primeList.length, 0);
+				BinaryProtocol.WriteEnd(out);
+			});
+			return;
+		}
+		
+		// send the first three items, the answers, to the client
+		SendData(sum + "," + mean + "," + stdev);
+		
+		// send the list of primes in chunks if it is too big
+		for (int i = 0; i < primeList.length;)
+		{
+			StringBuilder outputString = new StringBuilder();
+			// send packageSize number of primes at a time
+			for (int count = 0; count < packageSize && i < primeList.length;count++)
+			{
+				// if we have reached the end data append a delimiter
+				// to tell the client to stop listening for more data
+				if (i == primeList.length-1)
+				{
+					// append last item to outputString
+					outputString.append(primeList[i] + "," + packageDelimiter);
+				}
+				// if we have reached the end of the chunk don't add a comma
+				else if (count == packageSize-1)
+				{
+					// append item to outputString
+					outputString.append(primeList[i]);
+				}
+				else
+				{
+					// append item to outputString
+					outputString.append(primeList[i] + ",");
+				}
+				
+				// increment index
+				i++;
+			}
+			// send the chunk to the client
+			SendData(outputString.toString());
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendPrimes
+	//
+	// Description: Sends part of a streamed list of primes, packaged 
+	//				into chunks like PackageData but with no delimiter, 
+	//				the summary marks the end of a streamed answer
+	//
+	// Parameters: long array: list of primes to send
+	//			   long: the prime sent before these (0 if none)
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendPrimes(long[] primeList, long previousPrime)
+	{
+		if (binaryProtocol)
+		{
+			Send(out -> BinaryProtocol.WritePrimes(out, primeList, 0, primeList.length, previousPrime));
+			return;
+		}
+		
+		// send packageSize number of primes at a time
+		for (int i = 0; i < primeList.length; i += packageSize)
+		{
+			StringBuilder outputString = new StringBuilder();
+			for (int count = i; count < primeList.length && count < i + packageSize; count++)
+			{
+				if (count > i)
+				{
+					outputString.append(',');
+				}
+				outputString.append(primeList[count]);
+			}
+			SendData(outputString.toString());
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendSummary
+	//
+	// Description: Sends the answers that end a streamed answer, or 
+	//				make up the whole answer to a statistics only request
+	//
+	// Parameters: double: sum to send
+	//			   double: mean to send
+	//			   double: standard deviation to send
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendSummary(double sum, double mean, double stdev)
+	{
+		SendSummary(sum, mean, stdev, true);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendSummary
+	//
+	// Description: Sends the answers of a reply, which may be followed 
+	//				by more of the same reply (the cursor of a paged answer)
+	//
+	// Parameters: double: sum to send
+	//			   double: mean to send
+	//			   double: standard deviation to send
+	//			   boolean: true if the answers end the reply
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendSummary(double sum, double mean, double stdev, boolean endReply)
+	{
+		if (binaryProtocol)
+		{
+			Send(out -> 
+			{
+				BinaryProtocol.WriteStatistics(out, sum, mean, stdev);
+				if (endReply)
+				{
+					BinaryProtocol.WriteEnd(out);
+				}
+			});
+			return;
+		}
+		
+		SendData(summaryMarker + sum + "," + mean + "," + stdev);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendCount
+	//
+	// Description: Sends the answer to a count only request
+	//
+	// Parameters: long: number of primes to send
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendCount(long count)
+	{
+		if (binaryProtocol)
+		{
+			Send(out -> BinaryProtocol.WriteCount(out, count));
+			return;
+		}
+		
+		SendData(summaryMarker + count);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendPartial
+	//
+	// Description: Tells the client the deadline cut the request short 
+	//				and its answers only cover the range up to an integer. 
+	//				Sent before the answers, it doesn't end the reply.
+	//
+	// Parameters: long: last integer the answers cover
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendPartial(long end)
+	{
+		partialEnd = end;
+		
+		if (binaryProtocol)
+		{
+			Send(out -> BinaryProtocol.WritePartial(out, end));
+			return;
+		}
+		
+		SendData(partialMarker + end);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendNoPrimes
+	//
+	// Description: Tells the client there are no primes in its range, or 
+	//				in the part of it done before the deadline
+	//
+	// Parameters: long: first integer of the range
+	//			   long: last integer of the range
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendNoPrimes(long first, long second)
+	{
+		if (partialEnd >= 0 && partialEnd < first)
+		{
+			SendData("xThe deadline passed before any of the range was done. Please allow more time or try a smaller range.");
+			return;
+		}
+		
+		SendData(String.format(
+				"xNo prime integers between %d and %d. Please try different integers.\n",
+				first,
+				partialEnd >= 0 ? partialEnd : second
+				));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendCursor
+	//
+	// Description: Sends the cursor that ends a paged answer, the 
+	//				client sends it back to get the next page
+	//
+	// Parameters: String: the cursor, empty if there are no more pages
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendCursor(String cursor)
+	{
+		if (binaryProtocol)
+		{
+			Send(out -> BinaryProtocol.WriteCursor(out, cursor));
+			return;
+		}
+		
+		SendData(cursorMarker + cursor);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendTagged
+	//
+	// Description: Sends the tag of a pipelined request followed by its 
+	//				whole answer, with nothing else sent in between. 
+	//				Both go out in one write, so the answer never waits 
+	//				on the client acknowledging the tag.
+	//
+	// Parameters: String: the request's tag
+	//			   byte array: the answer, already in the reply format
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendTagged(String tag, byte[] reply)
+	{
+		Send(out -> 
+		{
+			ByteArrayOutputStream tagged = new ByteArrayOutputStream(reply.length + tag.length() + 16);
+			DataOutputStream taggedStream = new DataOutputStream(tagged);
+			if (binaryProtocol)
+			{
+				BinaryProtocol.WriteTag(taggedStream, tag);
+			}
+			else
+			{
+				taggedStream.writeUTF(tagMarker + tag);
+			}
+			taggedStream.write(reply);
+			
+			tagged.writeTo(out);
+			out.flush();
+		});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendData
+	//
+	// Description: Sends the passed string to the client
+	//
+	// Parameters: String: data to be sent to the client
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void SendData(String data)
+	{
+		// the client left, answers to its cancelled requests go nowhere
+		if (clientSocket.isClosed())
+		{
+			return;
+		}
+		
+		if (binaryProtocol)
+		{
+			// binary replies only carry messages, drop the message marker
+			Send(out -> BinaryProtocol.WriteMessage(out, data.startsWith("x") ? data.substring(1) : data));
+		}
+		else
+		{
+			Send(out -> out.writeUTF(data));
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Send
+	//
+	// Description: writes a message to the client under the send lock, 
+	//				so the threads answering the client's requests never 
+	//				split each other's messages. A ReentrantLock, so a 
+	//				virtual thread waiting on a slow client isn't pinned 
+	//				to its carrier.
+	//
+	// Parameters: ReplyWriter: writes the message to the client's stream
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void Send(ReplyWriter message)
+	{
+		boolean failed = false;
+		sendLock.lock();
+		try
+		{
+			message.Write(dataOutStream);
+		}
+		catch (IOException e) 
+		{
+			System.err.printf("IO Error while sending data to client on port %d.\n", clientSocket.getPort());
+			e.printStackTrace();
+			failed = true;
+		}
+		finally
+		{
+			sendLock.unlock();
+		}
+		
+		// error, close the client connection
+		if (failed)
+		{
+			CloseConnection();
+		}
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: GetClientData
+	//
+	// Description: waits for and accepts data from the client
+	//
+	// Parameters: None
+	//
+	// Returns: String: data from client
+	//
+	// **************************************************************
+	public String GetClientData()
+	{
+		String data = "";
+		try
+		{
+			data = dataInStream.readUTF();
+		}
+		catch (Exception e) 
+		{
+			if (e instanceof SocketException) 
+			{
+				System.out.printf("Client on port %d disconnected unexpectedly. Closing the connection fully.\n", clientSocket.getPort());
+				// not a critical error, no need to quit
+			}
+			else if (e instanceof IOException) 
+			{
+				System.out.printf("IO Error while reading data from client on port %d.\n", clientSocket.getPort());
+				e.printStackTrace();
+				// not a critical error, no need to quit
+			}
+			else if (e instanceof EOFException) 
+			{
+				System.out.printf("End of Field Error while reading data from client on port %d.\n", clientSocket.getPort());
+				e.printStackTrace();
+				// not a critical error, no need to quit
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while reading data from client on port %d.\n", clientSocket.getPort());
+				e.printStackTrace();
+				// not a critical error, no need to quit
+			}
+			// error, close the client connection
+			CloseConnection();
+		}
+		
+		return data;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ParseClientData
+	//
+	// Description: parses and validates client input, producing a 
+	//				list of integers to use for calculations based on 
+	//				valid input
+	//
+	// Parameters: String: string input from client
+	//
+	// Returns: CompletableFuture: completes with the array of integers 
+	//			to use in calculations (empty if the input was invalid)
+	//
+	// **************************************************************
+	public CompletableFuture<long[]> ParseClientData(String data)
+	{
+		long[] range = ParseRange(data);
+		
+		if (range == null)
+		{
+			return CompletableFuture.completedFuture(new long[0]);
+		}
+		
+		// check that ints meet requirements and build list		
+		return GenerateList(range[0], range[1]);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ParseRange
+	//
+	// Description: parses client input into the two integers of a 
+	//				range, sending an error to the client if it can't
+	//
+	// Parameters: String: string input from client
+	//
+	// Returns: long array: the first and second integer, or null if 
+	//			the input was invalid
+	//
+	// **************************************************************
+	public long[] ParseRange(String data)
+	{
+		long parseStart = System.nanoTime();
+		long[] range = null;
+		
+		try
+		{
+			// first check that input has comma separation
+			if (data.contains(","))
+			{
+				String intsString[] = data.split(",");
+				
+				// check if we got two items
+				if (intsString.length == 2)
+				{
+					// try to parse longs
+					long first = Long.parseLong(intsString[0]);
+					long second = Long.parseLong(intsString[1]);
+					
+					range = new long[] { first, second };
+				}
+				else
+				{
+					// not two integers
+					SendData("xPlease input two integers.");
+				}
+			}
+			else
+			{
+				// no commas print error to client
+				SendData("xPlease use commas to seperate your integers.\n");
+			}
+		}
+		catch (Exception e)
+		{
+			if (e instanceof SocketException) 
+			{
+				System.out.printf("Client on port %d disconnected unexpectedly. Closing the connection fully.\n", clientSocket.getPort());
+				// not a critical error, no need to quit
+				// close the client connection
+				CloseConnection();
+			}
+			else if (e instanceof NumberFormatException) 
+			{
+				// error during parsing of integers		
+				//System.out.printf("Number Format Error while parsing data from client on port %d.\n", clientSocket.getPort());
+				SendData("xPlease input two integers.");
+				// not a critical error, no need to quit
+			}
+			else
+			{
+				System.err.printf("Unhandled exception while parsing data from client on port %d.\n", clientSocket.getPort());
+				e.printStackTrace();
+				// not a critical error, no need to quit
+				// parse failed send error to client
+				SendData("xParse Error, please try again.");
+			}
+		}
+		
+		server.GetMetrics().RecordParse(parseStart);
+		return range;
+	}
+		
+
+	// ***************************************************************
+	//
+	// Method: ParsePageRequest
+	//
+	// Description: parses a paged request, a range followed by the 
+	//				number of primes per page, sending an error to the 
+	//				client if it can't
+	//
+	// Parameters: String: string input from client, without the prefix
+	//
+	// Returns: long array: the first and second integer and the page 
+	//			size, or null if the input was invalid
+	//
+	// **************************************************************
+	public long[] ParsePageRequest(String data)
+	{
+		int sizeComma = data.lastIndexOf(',');
+		if (sizeComma < 0)
+		{
+			SendData("xPlease input two integers and a page size, seperated by commas.");
+			return null;
+		}
+		
+		long[] range = ParseRange(data.substring(0, sizeComma));
+		if (range == null)
+		{
+			return null;
+		}
+		
+		int pageSize = 0;
+		try
+		{
+			pageSize = Integer.parseInt(data.substring(sizeComma + 1));
+		}
+		catch (NumberFormatException e)
+		{
+			// page size is checked below
+		}
+		
+		// a pipelined request's page is held whole until it is sent
+		int pageLimit = tagged ? maxTaggedPageSize : maxPageSize;
+		if (pageSize <= 0 || pageSize > pageLimit)
+		{
+			SendData(String.format("xThe page size must be between 1 and %d.", pageLimit));
+			return null;
+		}
+		
+		return new long[] { range[0], range[1], pageSize };
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ParseCursor
+	//
+	// Description: parses a cursor sent back by the client, sending an 
+	//				error to the client if it isn't one this server made
+	//
+	// Parameters: String: the cursor
+	//
+	// Returns: long array: the first integer of the page, the last 
+	//			integer of the range and the page size, or null if the 
+	//			cursor was invalid
+	//
+	// **************************************************************
+	public long[] ParseCursor(String cursor)
+	{
+		try
+		{
+			String fields[] = cursor.split("\\" + cursorDelimiter);
+			if (fields.length == 3)
+			{
+				long first = Long.parseLong(fields[0], Character.MAX_RADIX);
+				long second = Long.parseLong(fields[1], Character.MAX_RADIX);
+				long pageSize = Long.parseLong(fields[2], Character.MAX_RADIX);
+				
+				if (first > 0 && first <= second && second <= maxInteger && pageSize > 0 && pageSize <= maxPageSize)
+				{
+					if (tagged && pageSize > maxTaggedPageSize)
+					{
+						SendData(String.format("xPipelined requests can get pages of at most %d primes, please send this cursor untagged.", maxTaggedPageSize));
+						return null;
+					}
+					return new long[] { first, second, pageSize };
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			// not a cursor, the error is sent below
+		}
+		
+		SendData("xThat page cursor is not valid, please start a new paged request.");
+		return null;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: MakeCursor
+	//
+	// Description: makes the cursor for a page. Everything needed to 
+	//				find the page is in the cursor, so the server keeps 
+	//				nothing for a paged answer between requests.
+	//
+	// Parameters:  long: first integer of the page
+	//				long: last integer of the range
+	//				int: number of primes per page
+	//
+	// Returns: String: the cursor
+	//
+	// **************************************************************
+	public String MakeCursor(long first, long second, int pageSize)
+	{
+		return Long.toString(first, Character.MAX_RADIX) + cursorDelimiter 
+				+ Long.toString(second, Character.MAX_RADIX) + cursorDelimiter 
+				+ Integer.toString(pageSize, Character.MAX_RADIX);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ValidateRange
+	//
+	// Description: checks that the two parsed longs make a valid range, 
+	//				sending an error to the client if they don't
+	//
+	// Parameters:  long: first input from client
+	//				long: second input from client
+	//
+	// Returns: boolean: true if the range is valid
+	//
+	// **************************************************************
+	public boolean ValidateRange(long first, long second)
+	{
+		boolean valid = true;
+		
+		// first check if any integer is less than or equal to0
+		if (first <= 0 || second <= 0)
+		{
+			// output error to client
+			SendData("xAll the integers must be greater than zero.");
+			valid = false;
+		}
+		// next check if the second input is not greater than the first input
+		else if (second <= first)
+		{
+			// output error to client
+			SendData("xThe first integer must be less than the second.");
+			valid = false;
+		}
+		// last check that the range stays where its arithmetic can't overflow
+		else if (second > maxInteger)
+		{
+			// output error to client
+			SendData(String.format("xThe integers must be at most %d.", maxInteger));
+			valid = false;
+		}
+		
+		return valid;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ValidateTaggedRange
+	//
+	// Description: checks that a pipelined request doesn't ask for the 
+	//				primes of a wide range. Its answer is held whole until 
+	//				it is sent, so it can only list a few million integers' 
+	//				worth, sending an error to the client if it asks for more.
+	//
+	// Parameters:  long: first input from client
+	//				long: second input from client
+	//
+	// Returns: boolean: true if the range can be listed
+	//
+	// **************************************************************
+	public boolean ValidateTaggedRange(long first, long second)
+	{
+		if (tagged && second - first >= maxTaggedListRange)
+		{
+			SendData(String.format(
+					"xPipelined requests can list the primes of at most %d integers, please send wider ranges untagged or use a %s or %s request.",
+					maxTaggedListRange,
+					statsPrefix,
+					countPrefix
+					));
+			return false;
+		}
+		return true;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: QueueChunks
+	//
+	// Description: splits a range into chunks and asks the server to 
+	//				queue a prime task for each chunk, in order
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//				long: number of integers per chunk (kept between 
+	//					  minChunkSize and maxChunkSize)
+	//
+	// Returns: ArrayList: the chunk tasks' results, in range order
+	//
+	// **************************************************************
+	public ArrayList<CompletableFuture<long[]>> QueueChunks(long first, long second, long chunkSize)
+	{
+		return QueueChunkTasks(first, second, chunkSize, 
+				(chunkFirst, chunkSecond) -> new PrimeRangeCallable(server.GetPrimeCache(), chunkFirst, chunkSecond));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: QueueChunkTasks
+	//
+	// Description: splits a range into chunks and asks the server to 
+	//				queue a task for each chunk, in order
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//				long: number of integers per chunk (kept between 
+	//					  minChunkSize and maxChunkSize)
+	//				BiFunction: makes the task for a chunk's first and 
+	//							last integer
+	//
+	// Returns: ArrayList: the chunk tasks' results, in range order
+	//
+	// **************************************************************
+	public <T> ArrayList<CompletableFuture<T>> QueueChunkTasks(long first, long second, long chunkSize, 
+			BiFunction<Long, Long, Callable<T>> chunkTask)
+	{
+		ArrayList<CompletableFuture<T>> chunks = new ArrayList<CompletableFuture<T>>();
+		chunkSize = ChunkSize(chunkSize);
+		
+		for (long chunkFirst = first; chunkFirst <= second; chunkFirst += chunkSize)
+		{
+			long chunkSecond = Math.min(second, chunkFirst + chunkSize - 1);
+			synchronized(server) 
+			{
+				chunks.add(QueueTask(chunkTask.apply(chunkFirst, chunkSecond)));
+			}
+		}
+		
+		return chunks;
+	}
+	
+	// ***************************************************************
+	//
+	// Method: ChunkSize
+	//
+	// Description: keeps a chunk size between minChunkSize and 
+	//				maxChunkSize, the size QueueChunkTasks really uses
+	//
+	// Parameters:  long: number of integers per chunk asked for
+	//
+	// Returns: long: number of integers per chunk
+	//
+	// **************************************************************
+	private long ChunkSize(long chunkSize)
+	{
+		return Math.min(maxChunkSize, Math.max(minChunkSize, chunkSize));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: FinishedChunks
+	//
+	// Description: waits for a request's chunks, or for its deadline if 
+	//				it has one. At the deadline the chunks still running 
+	//				or waiting are cancelled and only the chunks done in 
+	//				range order, from the first, are used.
+	//
+	// Parameters:  ArrayList: the chunk tasks' results, in range order
+	//
+	// Returns: CompletableFuture: completes with the number of chunks, 
+	//			from the first, whose results can be used
+	//
+	// **************************************************************
+	private <T> CompletableFuture<Integer> FinishedChunks(ArrayList<CompletableFuture<T>> chunks)
+	{
+		long computeStart = System.nanoTime();
+		CompletableFuture<Integer> all = CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+				.thenApply(done -> 
+				{
+					server.GetMetrics().RecordCompute(computeStart);
+					return chunks.size();
+				});
+		if (deadline == 0)
+		{
+			return all;
+		}
+		
+		// the cut off is done where the timeout completes, so the chunks 
+		// still waiting in the client's lane are cancelled straight away
+		// and skipped instead of run before the rest of the request. The 
+		// timeout completes on a timer thread shared by the whole server, 
+		// the sends chained after it run on the client's reply lane.
+		long requestDeadline = deadline;
+		return all.completeOnTimeout(-1, Math.max(0, requestDeadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+				.handle((count, e) -> 
+				{
+					if (e == null && count >= 0)
+					{
+						// every chunk was done in time
+						return count;
+					}
+					
+					// chunks that check the deadline stop with a cancellation, 
+					// anything else (or a cancel before the deadline) is a failure
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					if (e != null && !(IsCancelled(cause) && System.nanoTime() - requestDeadline >= 0))
+					{
+						throw e instanceof CompletionException ? (CompletionException)e : new CompletionException(e);
+					}
+					
+					server.GetMetrics().RecordCompute(computeStart);
+					int finished = 0;
+					while (finished < chunks.size() && chunks.get(finished).isDone() && !chunks.get(finished).isCompletedExceptionally())
+					{
+						finished++;
+					}
+					
+					// nobody will use the rest
+					for (int chunk = finished; chunk < chunks.size(); chunk++)
+					{
+						chunks.get(chunk).cancel(false);
+					}
+					return finished;
+				});
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: FinishedEnd
+	//
+	// Description: finds the last integer of a range covered by its 
+	//				finished chunks
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//				long: number of integers per chunk asked for
+	//				int: number of chunks finished, from the first
+	//
+	// Returns: long: last integer covered, first - 1 if none are
+	//
+	// **************************************************************
+	private long FinishedEnd(long first, long second, long chunkSize, int finished)
+	{
+		return Math.min(second, first + finished * ChunkSize(chunkSize) - 1);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CalculateRange
+	//
+	// Description: finds only the sum, mean and standard deviation (or 
+	//				only the count) of the primes in a range and sends 
+	//				them to the client. The list of primes is never built 
+	//				or sent.
+	//
+	// Parameters:  long: first input from client
+	//				long: second input from client
+	//				boolean: true to find only the count
+	//
+	// Returns: CompletableFuture: completes once the answer is sent
+	//
+	// **************************************************************
+	public CompletableFuture<Void> CalculateRange(long first, long second, boolean countOnly)
+	{
+		if (!ValidateRange(first, second))
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		return FindRangeStatistics(first, second, countOnly).thenAcceptAsync(stats -> 
+				{
+					if (countOnly)
+					{
+						SendCount(stats.GetCount());
+					}
+					else if (stats.GetCount() == 0)
+					{
+						// send message to client to try different numbers
+						SendNoPrimes(first, second);
+					}
+					else
+					{
+						SendSummary(stats.GetSum(), stats.GetMean(), stats.GetStDev());
+					}
+				}, replyLane)
+				.exceptionallyAsync(e ->
+				{
+					// unwrap the exception thrown by the chunk's task
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					
+					// the client cancelled the request or left
+					if (IsCancelled(cause))
+					{
+						SendData(cancelledMessage);
+						return null;
+					}
+					
+					System.err.printf("%s while trying to process prime integer calculatoins for client on port %s.\n",cause.toString(),clientSocket.getPort());
+					cause.printStackTrace();
+					
+					// Send an error to the user and ask for new input
+					SendData("xError while calculating answers. Please try again.");
+					return null;
+				}, replyLane);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: FindRangeStatistics
+	//
+	// Description: finds the statistics (or only the count) of the 
+	//				primes in a valid range without building the list 
+	//				of primes. The part of the range covered by the 
+	//				server's checkpoints is answered from them, and each 
+	//				chunk of the rest is found by a threaded task. If the 
+	//				deadline cuts the request short the client is told 
+	//				first and the statistics are of the covered part and 
+	//				the finished chunks.
+	//
+	// Parameters:  long: first integer of the range
+	//				long: last integer of the range
+	//				boolean: true to find only the count
+	//
+	// Returns: CompletableFuture: completes with the merged statistics
+	//
+	// **************************************************************
+	public CompletableFuture<PrimeStatistics> FindRangeStatistics(long first, long second, boolean countOnly)
+	{
+		PrimeStatsIndex statsIndex = server.GetStatsIndex();
+		if (statsIndex.IsCovered(second))
+		{
+			PrimeStatistics stats = statsIndex.GetStatistics(first, second);
+			server.GetMetrics().PrimesGenerated(stats.GetCount());
+			return CompletableFuture.completedFuture(stats);
+		}
+		
+		// the next request for the range is answered from the checkpoints
+		server.ExtendStatsIndex(second);
+		
+		// answer the start of the range from the checkpoints, only the 
+		// rest is calculated. The background tasks may have added 
+		// checkpoints past the range since it was checked.
+		long coveredEnd = Math.min(statsIndex.GetCoveredEnd(), second);
+		PrimeStatistics covered = first <= coveredEnd ? statsIndex.GetStatistics(first, coveredEnd) : new PrimeStatistics();
+		long tailFirst = Math.max(first, coveredEnd + 1);
+		
+		// split the rest into about one chunk per server core, the 
+		// chunks stop early if the request is cancelled or out of time
+		AtomicBoolean cancelled = connection.cancelFlag;
+		long requestDeadline = deadline;
+		long chunkSize = (second - tailFirst) / server.GetThreadCount() + 1;
+		ArrayList<CompletableFuture<PrimeStatistics>> chunks = QueueChunkTasks(tailFirst, second, chunkSize, 
+				(chunkFirst, chunkSecond) -> new RangeStatisticsCallable(server.GetPrimeCache(), chunkFirst, chunkSecond, countOnly, cancelled, requestDeadline));
+		
+		// merge the chunks once they are all done, or the finished ones 
+		// at the deadline
+		return FinishedChunks(chunks)
+				.thenApplyAsync(finished -> 
+				{
+					if (finished < chunks.size())
+					{
+						SendPartial(FinishedEnd(tailFirst, second, chunkSize, finished));
+					}
+					
+					PrimeStatistics stats = new PrimeStatistics();
+					stats.Merge(covered);
+					for (int chunk = 0; chunk < finished; chunk++)
+					{
+						stats.Merge(chunks.get(chunk).join());
+					}
+					server.GetMetrics().PrimesGenerated(stats.GetCount());
+					return stats;
+				}, replyLane);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: StartPages
+	//
+	// Description: answers the first request of a paged answer, sends 
+	//				the sum, mean and standard deviation of the range 
+	//				then the cursor of the first page. No primes are 
+	//				sent until the client asks for a page.
+	//
+	// Parameters:  long: first input from client
+	//				long: second input from client
+	//				int: number of primes per page
+	//
+	// Returns: CompletableFuture: completes once the answer is sent
+	//
+	// **************************************************************
+	public CompletableFuture<Void> StartPages(long first, long second, int pageSize)
+	{
+		if (!ValidateRange(first, second))
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		return FindRangeStatistics(first, second, false).thenAcceptAsync(stats -> 
+				{
+					if (stats.GetCount() == 0)
+					{
+						// send message to client to try different numbers
+						SendNoPrimes(first, second);
+					}
+					else
+					{
+						SendSummary(stats.GetSum(), stats.GetMean(), stats.GetStDev(), false);
+						// the pages only cover what the answers cover
+						SendCursor(MakeCursor(first, partialEnd >= 0 ? partialEnd : second, pageSize));
+					}
+				}, replyLane)
+				.exceptionallyAsync(e ->
+				{
+					// unwrap the exception thrown by the chunk's task
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					
+					// the client cancelled the request or left
+					if (IsCancelled(cause))
+					{
+						SendData(cancelledMessage);
+						return null;
+					}
+					
+					System.err.printf("%s while trying to process prime integer calculatoins for client on port %s.\n",cause.toString(),clientSocket.getPort());
+					cause.printStackTrace();
+					
+					// Send an error to the user and ask for new input
+					SendData("xError while calculating answers. Please try again.");
+					return null;
+				}, replyLane);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SendPage
+	//
+	// Description: sends one page of a paged answer followed by the 
+	//				cursor of the next page. The page is found again 
+	//				from the server's prime cache by a threaded task, 
+	//				starting at the cursor's integer.
+	//
+	// Parameters:  long: first integer of the page
+	//				long: last integer of the range
+	//				int: number of primes per page
+	//
+	// Returns: CompletableFuture: completes once the page is sent
+	//
+	// **************************************************************
+	public CompletableFuture<Void> SendPage(long first, long second, int pageSize)
+	{
+		long computeStart = System.nanoTime();
+		CompletableFuture<long[]> page;
+		synchronized(server) 
+		{
+			page = QueueTask(new PrimePageCallable(server.GetPrimeCache(), first, second, pageSize));
+		}
+		
+		return page.thenAcceptAsync(primes -> 
+				{
+					server.GetMetrics().RecordCompute(computeStart);
+					server.GetMetrics().PrimesGenerated(primes.length);
+					SendPrimes(primes, 0);
+					
+					// a full page that stops before the end of the range has 
+					// more after it, the next page starts after its last prime
+					if (primes.length == pageSize && primes[pageSize - 1] < second)
+					{
+						SendCursor(MakeCursor(primes[pageSize - 1] + 1, second, pageSize));
+					}
+					else
+					{
+						SendCursor("");
+					}
+				}, replyLane)
+				.exceptionallyAsync(e ->
+				{
+					// unwrap the exception thrown by the page's task
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					
+					// the client cancelled the request or left
+					if (IsCancelled(cause))
+					{
+						SendData(cancelledMessage);
+						return null;
+					}
+					
+					System.err.printf("%s while trying to retrieve prime number for client on port %s.\n",cause.toString(),clientSocket.getPort());
+					cause.printStackTrace();
+					
+					// send error to client
+					SendData("xError while gathering primes, please try again.");
+					return null;
+				}, replyLane);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: StreamList
+	//
+	// Description: streaming version of GenerateList and 
+	//				CalculateOutput. Sends the primes of each chunk as 
+	//				soon as it and every chunk before it are done, then 
+	//				sends the sum, mean and standard deviation last.
+	//
+	// Parameters:  long: first input from client
+	//				long: second input from client
+	//
+	// Returns: CompletableFuture: completes once the whole answer is sent
+	//
+	// **************************************************************
+	public CompletableFuture<Void> StreamList(long first, long second)
+	{
+		if (!ValidateRange(first, second) || !ValidateTaggedRange(first, second))
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		// smaller chunks than GenerateList so the first primes go out sooner
+		long chunkSize = Math.min(maxStreamChunkSize, (second - first) / server.GetThreadCount() + 1);
+		ArrayList<CompletableFuture<long[]>> chunks = QueueChunks(first, second, chunkSize);
+		
+		// only touched by the sends, which all run in turn on the client's 
+		// reply lane, so nothing here needs a lock
+		PrimeStatistics stats = new PrimeStatistics();
+		long[] previousPrime = new long[1]; // last prime sent, binary replies send gaps
+		int[] sentChunks = new int[1]; // chunks sent so far
+		boolean[] answersSent = new boolean[1]; // true once the answers end the reply
+		
+		// chain the sends so each chunk goes out after the one before it
+		ArrayList<CompletableFuture<Void>> sends = new ArrayList<CompletableFuture<Void>>();
+		CompletableFuture<Void> sent = CompletableFuture.completedFuture(null);
+		for (int chunk = 0; chunk < chunks.size(); chunk++)
+		{
+			// each chunk's statistics are found by the thread that finished it
+			CompletableFuture<PrimeStatistics> chunkStats = chunks.get(chunk)
+					.thenApply(primes -> new PrimeStatistics(primes, 0, primes.length));
+			CompletableFuture<long[]> chunkPrimes = chunks.get(chunk);
+			
+			sent = sent.thenCombineAsync(chunkStats, (done, partial) -> 
+			{
+				// a chunk finished just after the deadline is not sent 
+				// once the answers are
+				if (!answersSent[0])
+				{
+					long[] primes = chunkPrimes.join();
+					server.GetMetrics().PrimesGenerated(primes.length);
+					stats.Merge(partial);
+					SendPrimes(primes, previousPrime[0]);
+					if (primes.length > 0)
+					{
+						previousPrime[0] = primes[primes.length - 1];
+					}
+					sentChunks[0]++;
+				}
+				return null;
+			}, replyLane);
+			sends.add(sent);
+		}
+		
+		// send the answers last, once every chunk finished before the 
+		// deadline (or every chunk, without one) is sent
+		return FinishedChunks(chunks)
+				.thenCompose(finished -> finished == 0 ? CompletableFuture.completedFuture(null) : sends.get(finished - 1))
+				.thenRunAsync(() -> 
+				{
+					answersSent[0] = true;
+					if (sentChunks[0] < chunks.size())
+					{
+						SendPartial(FinishedEnd(first, second, chunkSize, sentChunks[0]));
+					}
+					
+					if (stats.GetCount() == 0)
+					{
+						// send message to client to try different numbers
+						SendNoPrimes(first, second);
+					}
+					else
+					{
+						SendSummary(stats.GetSum(), stats.GetMean(), stats.GetStDev());
+					}
+				}, replyLane)
+				.exceptionallyAsync(e ->
+				{
+					// unwrap the exception thrown by the chunk's task
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					
+					// the client cancelled the request or left
+					if (IsCancelled(cause))
+					{
+						SendData(cancelledMessage);
+						return null;
+					}
+					
+					System.err.printf("%s while trying to stream prime numbers to client on port %s.\n",cause.toString(),clientSocket.getPort());
+					cause.printStackTrace();
+					
+					// cancel any remaining chunks
+					for (int chunk = 0; chunk < chunks.size(); chunk++)
+					{
+						chunks.get(chunk).cancel(true);
+					}
+					
+					// send error to client
+					SendData("xError while gathering primes, please try again.");
+					return null;
+				}, replyLane);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GenerateList
+	//
+	// Description: takes in the two parsed longs, validates their values 
+	//				and builds the corresponding list of prime integers 
+	//				(using threaded tasks that read the server's prime 
+	//				cache, one per chunk of the range).
+	//
+	// Parameters:  long: first input from client
+	//				long: second input from client
+	//
+	// Returns: CompletableFuture: completes with the array of prime 
+	//			integers to use in calculations once every chunk is done
+	//
+	// **************************************************************
+	public CompletableFuture<long[]> GenerateList(long first, long second)
+	{
+		if (!ValidateRange(first, second))
+		{
+			return CompletableFuture.completedFuture(new long[0]);
+		}
+		if (!ValidateTaggedRange(first, second))
+		{
+			return CompletableFuture.completedFuture(new long[0]);
+		}
+		
+		// the whole list is held at once, wider ranges are answered 
+		// with the answers only, in pages or streamed
+		if (second - first >= maxListRange)
+		{
+			SendData(String.format(
+					"xRanges of more than %d integers are too large for one list, please use a %s, %s or %s request.",
+					maxListRange,
+					statsPrefix,
+					pagePrefix,
+					streamCommand
+					));
+			return CompletableFuture.completedFuture(new long[0]);
+		}
+		
+		// everything checks out, build the list starting at the first 
+		// number and ending at the second
+		// split the range into about one chunk per server core
+		long chunkSize = (second - first) / server.GetThreadCount() + 1;
+		ArrayList<CompletableFuture<long[]>> chunks = QueueChunks(first, second, chunkSize);
+		
+		// once every chunk is done (or at the deadline, the finished ones) 
+		// add all found primes to numList, merging the chunks in order 
+		// (no thread waits on the chunks)
+		return FinishedChunks(chunks)
+				.thenApplyAsync(finished -> 
+				{
+					if (finished < chunks.size())
+					{
+						SendPartial(FinishedEnd(first, second, chunkSize, finished));
+					}
+					
+					int primeCount = 0;
+					for (int chunk = 0; chunk < finished; chunk++)
+					{
+						primeCount += chunks.get(chunk).join().length;
+					}
+					
+					long[] numList = new long[primeCount];
+					int index = 0;
+					for (int chunk = 0; chunk < finished; chunk++)
+					{
+						long[] primes = chunks.get(chunk).join();
+						System.arraycopy(primes, 0, numList, index, primes.length);
+						index += primes.length;
+					}
+					
+					server.GetMetrics().PrimesGenerated(numList.length);
+					
+					// check if we still have an empty list
+					if (numList.length == 0)
+					{
+						// send message to client to try different numbers
+						SendNoPrimes(first, second);
+					}
+					return numList;
+				}, replyLane)
+				.exceptionallyAsync(e ->
+				{
+					// unwrap the exception thrown by the chunk's task
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					
+					// the client cancelled the request or left
+					if (IsCancelled(cause))
+					{
+						SendData(cancelledMessage);
+						return new long[0];
+					}
+					
+					// future's thread throw an exception
+					// print it
+					System.err.printf("%s while trying to retrieve prime number for client on port %s.\n",cause.toString(),clientSocket.getPort());
+					cause.printStackTrace();
+					// cancel any remaining chunks
+					for (int chunk = 0; chunk < chunks.size(); chunk++)
+					{
+						chunks.get(chunk).cancel(true);
+					}
+					
+					// send error to client
+					SendData("xError while gathering primes, please try again.");
+					return new long[0];
+				}, replyLane);
+	}
+	
+
+	// ***************************************************************
+	//
+	// Method: CalculateOutput
+	//
+	// Description: calculates the sum, mean, and standard deviation of a 
+	// 				passed list of integers, then sends them to the 
+	//				client. Ranges covered by the server's checkpoints are 
+	//				answered from them, otherwise the list is split into 
+	//				slices, each slice's statistics are found in a single 
+	//				pass by a threaded task, then the slices are merged in 
+	//				order.
+	//
+	// Parameters:  long array: array of integers to use in calculations
+	//
+	// Returns: CompletableFuture: completes once the answers are sent
+	//
+	// **************************************************************
+	public CompletableFuture<Void> CalculateOutput(long[] numList) 
+	{		
+		long statsStart = System.nanoTime();
+		CompletableFuture<PrimeStatistics> statistics;
+		
+		// the primes between the first and last prime are the whole list, 
+		// so if the server's checkpoints already cover it use them
+		PrimeStatsIndex statsIndex = server.GetStatsIndex();
+		if (statsIndex.IsCovered(numList[numList.length - 1]))
+		{
+			statistics = CompletableFuture.completedFuture(
+					statsIndex.GetStatistics(numList[0], numList[numList.length - 1]));
+		}
+		else
+		{
+			// the next list in the range is answered from the checkpoints
+			server.ExtendStatsIndex(numList[numList.length - 1]);
+			
+			// ask the server to queue a statistics task for each slice
+			ArrayList<CompletableFuture<PrimeStatistics>> slices = new ArrayList<CompletableFuture<PrimeStatistics>>();
+			int sliceCount = server.GetThreadCount();
+			int sliceSize = Math.max(minSliceSize, numList.length / sliceCount + 1);
+			for (int from = 0; from < numList.length; from += sliceSize)
+			{
+				int to = Math.min(numList.length, from + sliceSize);
+				synchronized(server) 
+				{
+					slices.add(QueueTask(new StatisticsCallable(numList, from, to)));
+				}
+			}
+			
+			// merge the slices once they are all done
+			statistics = CompletableFuture.allOf(slices.toArray(new CompletableFuture<?>[0]))
+					.thenApply(done -> 
+					{
+						PrimeStatistics stats = new PrimeStatistics();
+						for (int slice = 0; slice < slices.size(); slice++)
+						{
+							stats.Merge(slices.get(slice).join());
+						}
+						return stats;
+					});
+		}
+		
+		// send data to client
+		return statistics.thenAcceptAsync(stats -> 
+				{
+					server.GetMetrics().RecordStats(statsStart);
+					PackageData(stats.GetSum(), stats.GetMean(), stats.GetStDev(), numList);
+				}, replyLane)
+				.exceptionallyAsync(e ->
+				{
+					// unwrap the exception thrown by the calculation task
+					Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+					
+					// the client cancelled the request or left
+					if (IsCancelled(cause))
+					{
+						SendData(cancelledMessage);
+						return null;
+					}
+					
+					// future's thread throw an exception
+					// print it
+					System.err.printf("%s while trying to process prime integer calculatoins for client on port %s", 
+							cause.toString(),
+							clientSocket.getPort());
+					cause.printStackTrace();
+					// Send an error to the user and ask for new input
+					SendData("xError while calculating answers. Please try again.");
+					return null;
+				}, replyLane);
+	}
+
+	
+	
+	// ***************************************************************
+	//
+	// Method: CloseConnection
+	//
+	// Description: Closes all client streams and the connection to 
+	//				the client
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void CloseConnection() 
+	{
+		// if the socket is still open
+		if (!clientSocket.isClosed())
+		{
+			// nobody will read the answers of requests still running
+			CancelTasks();
+			
+			try
+			{		
+				// print client socket closing
+				System.out.printf("\nClient disconnected:\nIP:%s\nPort:%d\n",
+						clientSocket.getInetAddress().toString(),
+						clientSocket.getPort());
+				
+				// close client socket data streams
+				if (dataOutStream != null)
+					dataOutStream.close();
+				if (dataInStream != null)
+					dataInStream.close();
+				
+				// close connection to client
+				clientSocket.close();			
+			} 
+			catch (Exception e)
+			{
+				if (e instanceof IOException)
+				{
+					System.err.printf("IO Error while closing connection to %s on port %d.\n", clientSocket.getInetAddress().toString(), clientSocket.getPort());
+					e.printStackTrace();
+					// not a critical error, no need to quit
+					// don't shut down server, just wait for new client
+				}
+				else if (e instanceof NullPointerException)
+				{
+					System.err.printf("Connection not fully closed properly for client at %s on port %d.\n", clientSocket.getInetAddress().toString(), clientSocket.getPort());
+					//e.printStackTrace();
+					// not a critical error, no need to quit
+					// don't shut down server, just wait for new client
+				}
+				else
+				{
+					System.err.printf("Unhandled exception while closing connection to %s on port %d.\n", clientSocket.getInetAddress().toString(), clientSocket.getPort());
+					e.printStackTrace();
+					// not a critical error, no need to quit
+					// don't shut down server, just wait for new client
+				}
+			}
+		}
+		
+		// if this was a "fully connected" client, only report it once
+		if (!disconnect && disconnectReported.compareAndSet(false, true))
+		{
+			// notify server of client disconnect, the server keeps 
+			// its own count thread-safe
+			server.ClientDisconnected();
+		}
+	}
+
+}
@@ -0,0 +1,309 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     ServerMetrics.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Counts what the server does so its load can be watched
+//				   while it runs: requests, primes found, turned away
+//				   clients and the latency of each phase of a request.
+//				   Client threads record into striped counters and
+//				   histograms that never lock, the totals are only added
+//				   up when the metrics are read. ServerMetricsJmx shows
+//				   them over JMX and MetricsHttpServer over HTTP.
+//
+//
+//******************************************************************************
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ServerMetrics
+{
+	private LongAdder requests;
+	private LongAdder primesGenerated;
+	private LongAdder rejectedConnections;
+	private LatencyHistogram parseLatency; // microseconds to parse and validate a request
+	private LatencyHistogram computeLatency; // microseconds from queuing a request's tasks until they are done
+	private LatencyHistogram statsLatency; // microseconds to find the answers of a list of primes
+	private LatencyHistogram sendLatency; // microseconds to write one message or frame to a client's socket
+	
+	
+	public ServerMetrics()
+	{
+		requests = new LongAdder();
+		primesGenerated = new LongAdder();
+		rejectedConnections = new LongAdder();
+		parseLatency = new LatencyHistogram();
+		computeLatency = new LatencyHistogram();
+		statsLatency = new LatencyHistogram();
+		sendLatency = new LatencyHistogram();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RequestReceived
+	//
+	// Description: counts a request from a client
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void RequestReceived()
+	{
+		requests.increment();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PrimesGenerated
+	//
+	// Description: counts primes found for a client
+	//
+	// Parameters: long: the number of primes
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void PrimesGenerated(long count)
+	{
+		primesGenerated.add(count);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ConnectionRejected
+	//
+	// Description: counts a client turned away
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void ConnectionRejected()
+	{
+		rejectedConnections.increment();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RecordParse
+	//
+	// Description: records how long parsing and validating a request took
+	//
+	// Parameters: long: when it started, from System.nanoTime
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void RecordParse(long startTime)
+	{
+		parseLatency.Record(MicrosSince(startTime));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RecordCompute
+	//
+	// Description: records how long a request's tasks took, from being
+	//				queued until they are all done
+	//
+	// Parameters: long: when it started, from System.nanoTime
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void RecordCompute(long startTime)
+	{
+		computeLatency.Record(MicrosSince(startTime));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RecordStats
+	//
+	// Description: records how long finding the answers of a list of
+	//				primes took
+	//
+	// Parameters: long: when it started, from System.nanoTime
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void RecordStats(long startTime)
+	{
+		statsLatency.Record(MicrosSince(startTime));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: RecordSend
+	//
+	// Description: records how long writing one message or frame to a
+	//				client's socket took
+	//
+	// Parameters: long: when it started, from System.nanoTime
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void RecordSend(long startTime)
+	{
+		sendLatency.Record(MicrosSince(startTime));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetParseLatency
+	//
+	// Description: gets the histogram of the latency of parsing requests
+	//
+	// Parameters: None
+	//
+	// Returns: LatencyHistogram: the latencies in microseconds
+	//
+	// **************************************************************
+	public LatencyHistogram GetParseLatency()
+	{
+		return parseLatency;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetComputeLatency
+	//
+	// Description: gets the histogram of the latency of requests' tasks
+	//
+	// Parameters: None
+	//
+	// Returns: LatencyHistogram: the latencies in microseconds
+	//
+	// **************************************************************
+	public LatencyHistogram GetComputeLatency()
+	{
+		return computeLatency;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetStatsLatency
+	//
+	// Description: gets the histogram of the latency of finding the answers of lists
+	//
+	// Parameters: None
+	//
+	// Returns: LatencyHistogram: the latencies in microseconds
+	//
+	// **************************************************************
+	public LatencyHistogram GetStatsLatency()
+	{
+		return statsLatency;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetSendLatency
+	//
+	// Description: gets the histogram of the latency of writing replies
+	//
+	// Parameters: None
+	//
+	// Returns: LatencyHistogram: the latencies in microseconds
+	//
+	// **************************************************************
+	public LatencyHistogram GetSendLatency()
+	{
+		return sendLatency;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetRequests
+	//
+	// Description: gets the number of requests received
+	//
+	// Parameters: None
+	//
+	// Returns: long: the requests
+	//
+	// **************************************************************
+	public long GetRequests()
+	{
+		return requests.sum();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetPrimesGenerated
+	//
+	// Description: gets the number of primes found for clients
+	//
+	// Parameters: None
+	//
+	// Returns: long: the primes
+	//
+	// **************************************************************
+	public long GetPrimesGenerated()
+	{
+		return primesGenerated.sum();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: GetRejectedConnections
+	//
+	// Description: gets the number of clients turned away, because the
+	//				server and its line were full or they waited too long
+	//
+	// Parameters: None
+	//
+	// Returns: long: the turned away clients
+	//
+	// **************************************************************
+	public long GetRejectedConnections()
+	{
+		return rejectedConnections.sum();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: MicrosSince
+	//
+	// Description: finds the microseconds since a start time
+	//
+	// Parameters: long: the start, from System.nanoTime
+	//
+	// Returns: long: the microseconds
+	//
+	// **************************************************************
+	private long MicrosSince(long startTime)
+	{
+		return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+	}
+}
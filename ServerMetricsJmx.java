@@ -0,0 +1,469 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     ServerMetricsJmx.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   The server's metrics as JMX shows them. Registered with
+//				   the platform MBean server so JConsole can show them,
+//				   adds the connection and thread pool numbers from the
+//				   server and turns the counters into rates.
+//
+//
+//******************************************************************************
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class ServerMetricsJmx implements ServerMetricsMXBean
+{
+	private final String objectName = "Project5:type=ServerMetrics"; // name the metrics are found by over JMX
+	private final long minRateInterval = TimeUnit.SECONDS.toNanos(1); // shortest time a rate is measured over
+	private final int requestRate = 0; // index of the requests per second sample
+	private final int primeRate = 1; // index of the primes per second sample
+	
+	private Project5Server server; // gives the connection and thread pool numbers
+	private ServerMetrics metrics; // the counters and latencies
+	
+	private long[] sampleTimes; // when each rate was last measured
+	private long[] sampleCounts; // the count each rate was last measured at
+	private double[] rates; // the last measured rates
+	
+	
+	public ServerMetricsJmx(Project5Server server, ServerMetrics metrics)
+	{
+		this.server = server;
+		this.metrics = metrics;
+		
+		long now = System.nanoTime();
+		sampleTimes = new long[] { now, now };
+		sampleCounts = new long[2];
+		rates = new double[2];
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Register
+	//
+	// Description: makes the metrics visible over JMX
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Register()
+	{
+		try
+		{
+			MBeanServer beanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(objectName);
+			if (!beanServer.isRegistered(name))
+			{
+				beanServer.registerMBean(this, name);
+			}
+		}
+		catch (JMException e)
+		{
+			System.err.printf("JMX Error while registering the server metrics as %s, they will not be visible.\n", objectName);
+			e.printStackTrace();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Unregister
+	//
+	// Description: removes the metrics from JMX
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	public void Unregister()
+	{
+		try
+		{
+			MBeanServer beanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(objectName);
+			if (beanServer.isRegistered(name))
+			{
+				beanServer.unregisterMBean(name);
+			}
+		}
+		catch (JMException e)
+		{
+			System.err.printf("JMX Error while unregistering the server metrics %s.\n", objectName);
+			e.printStackTrace();
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getConnectedClients
+	//
+	// Description: gets the number of clients connected
+	//
+	// Parameters: None
+	//
+	// Returns: int: the connected clients
+	//
+	// **************************************************************
+	@Override
+	public int getConnectedClients()
+	{
+		return server.GetClientCount();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getWaitingClients
+	//
+	// Description: gets the number of clients waiting in line for a
+	//				free client handler
+	//
+	// Parameters: None
+	//
+	// Returns: int: the waiting clients
+	//
+	// **************************************************************
+	@Override
+	public int getWaitingClients()
+	{
+		return server.GetWaitingClientCount();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getRejectedConnections
+	//
+	// Description: gets the number of clients turned away, because the
+	//				server and its line were full or they waited too long
+	//
+	// Parameters: None
+	//
+	// Returns: long: the turned away clients
+	//
+	// **************************************************************
+	@Override
+	public long getRejectedConnections()
+	{
+		return metrics.GetRejectedConnections();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getComputeActiveThreads
+	//
+	// Description: gets the number of calculation threads running a task
+	//
+	// Parameters: None
+	//
+	// Returns: int: the busy calculation threads
+	//
+	// **************************************************************
+	@Override
+	public int getComputeActiveThreads()
+	{
+		return server.GetComputeSaturation().GetActiveThreads();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getComputeQueuedTasks
+	//
+	// Description: gets the number of tasks waiting for a calculation
+	//				thread
+	//
+	// Parameters: None
+	//
+	// Returns: long: the waiting tasks
+	//
+	// **************************************************************
+	@Override
+	public long getComputeQueuedTasks()
+	{
+		return server.GetComputeSaturation().GetQueuedTasks();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getComputeCompletedTasks
+	//
+	// Description: gets the number of tasks the calculation threads have
+	//				finished
+	//
+	// Parameters: None
+	//
+	// Returns: long: the finished tasks
+	//
+	// **************************************************************
+	@Override
+	public long getComputeCompletedTasks()
+	{
+		return server.GetComputeSaturation().GetCompletedTasks();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getClientActiveThreads
+	//
+	// Description: gets the number of client handlers serving a client
+	//
+	// Parameters: None
+	//
+	// Returns: int: the busy client handlers
+	//
+	// **************************************************************
+	@Override
+	public int getClientActiveThreads()
+	{
+		return server.GetConnectionSaturation().GetActiveThreads();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getClientQueuedTasks
+	//
+	// Description: gets the number of clients waiting for a client
+	//				handler
+	//
+	// Parameters: None
+	//
+	// Returns: long: the waiting clients
+	//
+	// **************************************************************
+	@Override
+	public long getClientQueuedTasks()
+	{
+		return server.GetConnectionSaturation().GetQueuedTasks();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getRequests
+	//
+	// Description: gets the number of requests received
+	//
+	// Parameters: None
+	//
+	// Returns: long: the requests
+	//
+	// **************************************************************
+	@Override
+	public long getRequests()
+	{
+		return metrics.GetRequests();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getRequestsPerSecond
+	//
+	// Description: gets the requests received per second since the rate
+	//				was last read
+	//
+	// Parameters: None
+	//
+	// Returns: double: the requests per second
+	//
+	// **************************************************************
+	@Override
+	public double getRequestsPerSecond()
+	{
+		return Rate(requestRate, metrics.GetRequests());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getPrimesGenerated
+	//
+	// Description: gets the number of primes found for clients
+	//
+	// Parameters: None
+	//
+	// Returns: long: the primes
+	//
+	// **************************************************************
+	@Override
+	public long getPrimesGenerated()
+	{
+		return metrics.GetPrimesGenerated();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getPrimesPerSecond
+	//
+	// Description: gets the primes found per second since the rate was
+	//				last read
+	//
+	// Parameters: None
+	//
+	// Returns: double: the primes per second
+	//
+	// **************************************************************
+	@Override
+	public double getPrimesPerSecond()
+	{
+		return Rate(primeRate, metrics.GetPrimesGenerated());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getParseLatencyMicros
+	//
+	// Description: gets the latency of parsing requests
+	//
+	// Parameters: None
+	//
+	// Returns: Map: count, and mean, p50, p90, p99 and max in
+	//			microseconds
+	//
+	// **************************************************************
+	@Override
+	public Map<String, Long> getParseLatencyMicros()
+	{
+		return Summary(metrics.GetParseLatency());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getComputeLatencyMicros
+	//
+	// Description: gets the latency of requests' tasks
+	//
+	// Parameters: None
+	//
+	// Returns: Map: count, and mean, p50, p90, p99 and max in
+	//			microseconds
+	//
+	// **************************************************************
+	@Override
+	public Map<String, Long> getComputeLatencyMicros()
+	{
+		return Summary(metrics.GetComputeLatency());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getStatsLatencyMicros
+	//
+	// Description: gets the latency of finding the answers of lists
+	//
+	// Parameters: None
+	//
+	// Returns: Map: count, and mean, p50, p90, p99 and max in
+	//			microseconds
+	//
+	// **************************************************************
+	@Override
+	public Map<String, Long> getStatsLatencyMicros()
+	{
+		return Summary(metrics.GetStatsLatency());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: getSendLatencyMicros
+	//
+	// Description: gets the latency of writing replies
+	//
+	// Parameters: None
+	//
+	// Returns: Map: count, and mean, p50, p90, p99 and max in
+	//			microseconds
+	//
+	// **************************************************************
+	@Override
+	public Map<String, Long> getSendLatencyMicros()
+	{
+		return Summary(metrics.GetSendLatency());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Rate
+	//
+	// Description: finds how fast a count grew since it was last
+	//				measured. Reads closer together than a second get
+	//				the last rate again, so a rate is never measured
+	//				over a few milliseconds.
+	//
+	// Parameters: int: index of the rate
+	//			   long: the count now
+	//
+	// Returns: double: the count's growth per second
+	//
+	// **************************************************************
+	private synchronized double Rate(int rate, long count)
+	{
+		long now = System.nanoTime();
+		long interval = now - sampleTimes[rate];
+		if (interval >= minRateInterval)
+		{
+			rates[rate] = (count - sampleCounts[rate]) * 1e9 / interval;
+			sampleTimes[rate] = now;
+			sampleCounts[rate] = count;
+		}
+		return rates[rate];
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Summary
+	//
+	// Description: sums up a latency histogram for JMX
+	//
+	// Parameters: LatencyHistogram: the histogram
+	//
+	// Returns: Map: count, mean, p50, p90, p99 and max
+	//
+	// **************************************************************
+	private Map<String, Long> Summary(LatencyHistogram histogram)
+	{
+		Map<String, Long> summary = new LinkedHashMap<String, Long>();
+		summary.put("count", histogram.GetCount());
+		summary.put("mean", Math.round(histogram.GetMean()));
+		summary.put("p50", histogram.GetValueAtPercentile(50));
+		summary.put("p90", histogram.GetValueAtPercentile(90));
+		summary.put("p99", histogram.GetValueAtPercentile(99));
+		summary.put("max", histogram.GetMax());
+		return summary;
+	}
+}
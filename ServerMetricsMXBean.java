@@ -0,0 +1,61 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     ServerMetricsMXBean.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   The server's metrics as seen over JMX, in JConsole or
+//				   any other JMX client. JMX finds the attributes by their
+//				   getter names, so unlike the rest of the project these
+//				   methods start with a lower case "get".
+//
+//
+//******************************************************************************
+
+import java.util.Map;
+
+public interface ServerMetricsMXBean
+{
+	// clients connected to the server now
+	public int getConnectedClients();
+	
+	// clients waiting in line for a free client handler
+	public int getWaitingClients();
+	
+	// clients turned away because the server and its line were full,
+	// or because they waited too long
+	public long getRejectedConnections();
+	
+	// calculation threads running a task, tasks waiting for one and
+	// tasks finished
+	public int getComputeActiveThreads();
+	public long getComputeQueuedTasks();
+	public long getComputeCompletedTasks();
+	
+	// client handler threads running a client and clients waiting for one
+	public int getClientActiveThreads();
+	public long getClientQueuedTasks();
+	
+	// requests received, and per second since the rate was last read
+	public long getRequests();
+	public double getRequestsPerSecond();
+	
+	// primes found for clients, and per second since the rate was last read
+	public long getPrimesGenerated();
+	public double getPrimesPerSecond();
+	
+	// latency of each phase of a request in microseconds: count, mean,
+	// p50, p90, p99 and max
+	public Map<String, Long> getParseLatencyMicros();
+	public Map<String, Long> getComputeLatencyMicros();
+	public Map<String, Long> getStatsLatencyMicros();
+	public Map<String, Long> getSendLatencyMicros();
+}
@@ -0,0 +1,52 @@
+//********************************************************************
+//
+//  Developer:           Michael Franklin
+//
+//  Project #:           Five
+//
+//  File Name:           StatisticsCallable.java
+//
+//  Course:              COSC 4301 - Modern Programming
+//
+//  Due Date:            3/13/2022
+//
+//  Instructor:          Fred Kumi
+//
+//  Description:         callable class that calculates the statistics
+//                       of one slice of a list in a single pass
+//
+//********************************************************************
+
+import java.util.concurrent.Callable;
+
+public class StatisticsCallable implements Callable<PrimeStatistics>
+{
+	private long[] list;
+	private int from;
+	private int to;
+
+
+	public StatisticsCallable(long[] list, int from, int to)
+	{
+		this.list = list;
+		this.from = from;
+		this.to = to;
+	}
+
+   //***************************************************************
+   //
+   //  Method:       call
+   //
+   //  Description:  The main method of the callable class
+   //
+   //  Parameters:   None
+   //
+   //  Returns:      PrimeStatistics: the statistics of the slice
+   //
+   //**************************************************************
+	@Override
+	public PrimeStatistics call() throws Exception
+	{
+		return new PrimeStatistics(list, from, to);
+	}
+}
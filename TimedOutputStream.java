@@ -0,0 +1,69 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     TimedOutputStream.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Stream to a client's socket that records how long each
+//				   write takes as the server's send latency. Every reply
+//				   reaches the socket through it, tagged or not, while
+//				   pipelined answers being built in a buffer don't, so
+//				   only the time spent writing to the client is counted.
+//
+//
+//******************************************************************************
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class TimedOutputStream extends FilterOutputStream
+{
+	private ServerMetrics metrics;
+	
+	
+	public TimedOutputStream(OutputStream out, ServerMetrics metrics)
+	{
+		super(out);
+		this.metrics = metrics;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: write
+	//
+	// Description: writes bytes to the socket and records how long it
+	//				took, a message or frame is written in one call
+	//
+	// Parameters: byte array: data to send
+	//			   int: offset of the data
+	//			   int: length of the data
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException
+	{
+		long sendStart = System.nanoTime();
+		out.write(data, offset, length);
+		metrics.RecordSend(sendStart);
+	}
+	
+	@Override
+	public void write(int data) throws IOException
+	{
+		long sendStart = System.nanoTime();
+		out.write(data);
+		metrics.RecordSend(sendStart);
+	}
+}
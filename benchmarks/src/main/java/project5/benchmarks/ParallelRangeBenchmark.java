@@ -0,0 +1,166 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     ParallelRangeBenchmark.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Benchmarks one range split into a chunk per thread, the
+//				   way the server splits a request, to show how each
+//				   engine scales with the number of threads.
+//
+//
+//******************************************************************************
+
+package project5.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelRangeBenchmark
+{
+	private static final MethodHandle newSieve = Project5Classes.Constructor("PrimeSieve");
+	private static final MethodHandle sieveGetPrimes = Project5Classes.Method("PrimeSieve", "GetPrimes", long[].class, long.class, long.class);
+	private static final MethodHandle newCache = Project5Classes.Constructor("PrimeCache");
+	private static final MethodHandle cacheCountPrimes = Project5Classes.Method("PrimeCache", "CountPrimes", long.class, long.class, long.class);
+	private static final MethodHandle newRangeTask = Project5Classes.Constructor("PrimeRangeCallable",
+			Project5Classes.Find("PrimeCache"), long.class, long.class);
+	private static final MethodHandle newStatisticsTask = Project5Classes.Constructor("RangeStatisticsCallable",
+			Project5Classes.Find("PrimeCache"), long.class, long.class);
+	
+	// threads the range is split across
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+	
+	// number of integers in the range, starting at 1
+	@Param({ "10000000", "100000000" })
+	public int rangeSize;
+	
+	// sieve: PrimeSieve per chunk, cache: PrimeRangeCallable on a filled
+	// cache, stats: RangeStatisticsCallable on a filled cache
+	@Param({ "sieve", "cache", "stats" })
+	public String engine;
+	
+	private ExecutorService executorService;
+	private Object cache;
+	
+	
+	@Setup(Level.Trial)
+	public void Setup() throws Throwable
+	{
+		executorService = Executors.newFixedThreadPool(threads);
+		cache = newCache.invoke();
+		if (!engine.equals("sieve"))
+		{
+			cacheCountPrimes.invoke(cache, 1L, (long)rangeSize);
+		}
+	}
+	
+	
+	@TearDown(Level.Trial)
+	public void TearDown()
+	{
+		executorService.shutdownNow();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SplitRange
+	//
+	// Description: runs the engine on a chunk of the range per thread
+	//				and waits for every chunk
+	//
+	// Parameters: Blackhole: keeps the results from being optimized away
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Benchmark
+	public void SplitRange(Blackhole blackhole) throws Throwable
+	{
+		ArrayList<Future<?>> chunks = new ArrayList<Future<?>>();
+		long chunkSize = (long)rangeSize / threads + 1;
+		
+		for (long chunkFirst = 1; chunkFirst <= rangeSize; chunkFirst += chunkSize)
+		{
+			long chunkSecond = Math.min(rangeSize, chunkFirst + chunkSize - 1);
+			chunks.add(executorService.submit(NewTask(chunkFirst, chunkSecond)));
+		}
+		
+		for (int chunk = 0; chunk < chunks.size(); chunk++)
+		{
+			blackhole.consume(chunks.get(chunk).get());
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: NewTask
+	//
+	// Description: makes the engine's task for one chunk
+	//
+	// Parameters: long: first integer of the chunk
+	//			   long: last integer of the chunk
+	//
+	// Returns: Callable: the task
+	//
+	// **************************************************************
+	private Callable<?> NewTask(long first, long second) throws Throwable
+	{
+		if (engine.equals("sieve"))
+		{
+			Object sieve = newSieve.invoke();
+			return () -> 
+			{
+				try
+				{
+					return (long[])sieveGetPrimes.invoke(sieve, first, second);
+				}
+				catch (Throwable e)
+				{
+					throw new Exception(e);
+				}
+			};
+		}
+		if (engine.equals("cache"))
+		{
+			return (Callable<?>)newRangeTask.invoke(cache, first, second);
+		}
+		return (Callable<?>)newStatisticsTask.invoke(cache, first, second);
+	}
+}
@@ -0,0 +1,187 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     PrimalityBenchmark.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Benchmarks the engines that find the primes in a range:
+//				   trial division with PrimeTestCallable.isPrime,
+//				   Miller-Rabin, the segmented sieve, and the shared
+//				   prime cache once it is filled.
+//
+//
+//******************************************************************************
+
+package project5.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimalityBenchmark
+{
+	private static final MethodHandle newPrimeTest = Project5Classes.Constructor("PrimeTestCallable", int.class);
+	private static final MethodHandle isPrime = Project5Classes.Method("PrimeTestCallable", "isPrime", boolean.class, int.class);
+	private static final MethodHandle newSieve = Project5Classes.Constructor("PrimeSieve");
+	private static final MethodHandle newMillerRabin = Project5Classes.Constructor("PrimeMillerRabin");
+	private static final MethodHandle millerRabinIsPrime = Project5Classes.Method("PrimeMillerRabin", "IsPrime", boolean.class, long.class);
+	private static final MethodHandle sieveGetPrimes = Project5Classes.Method("PrimeSieve", "GetPrimes", long[].class, long.class, long.class);
+	private static final MethodHandle newCache = Project5Classes.Constructor("PrimeCache");
+	private static final MethodHandle cacheGetPrimes = Project5Classes.Method("PrimeCache", "GetPrimes", long[].class, long.class, long.class);
+	private static final MethodHandle cacheCountPrimes = Project5Classes.Method("PrimeCache", "CountPrimes", long.class, long.class, long.class);
+	
+	// first integer of the range, small and large primes behave differently
+	@Param({ "1", "1000000000" })
+	public int first;
+	
+	// number of integers in the range
+	@Param({ "10000", "1000000" })
+	public int rangeSize;
+	
+	private int second;
+	private Object primeTest;
+	private Object millerRabin;
+	private Object sieve;
+	private Object cache;
+	
+	
+	@Setup(Level.Trial)
+	public void Setup() throws Throwable
+	{
+		second = first + rangeSize - 1;
+		primeTest = newPrimeTest.invoke(0);
+		millerRabin = newMillerRabin.invoke();
+		sieve = newSieve.invoke();
+		
+		// fill the cache before timing it, the server's cache is
+		// filled by the first request for a range
+		cache = newCache.invoke();
+		cacheCountPrimes.invoke(cache, (long)first, (long)second);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: TrialDivision
+	//
+	// Description: tests every integer in the range with isPrime, the
+	//				way the server first found primes
+	//
+	// Parameters: Blackhole: keeps the results from being optimized away
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Benchmark
+	public void TrialDivision(Blackhole blackhole) throws Throwable
+	{
+		for (int number = first; number <= second; number++)
+		{
+			blackhole.consume((boolean)isPrime.invoke(primeTest, number));
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: MillerRabin
+	//
+	// Description: tests every integer in the range with PrimeMillerRabin, 
+	//				the way the cache tests windows far past its bitmap
+	//
+	// Parameters: Blackhole: keeps the results from being optimized away
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Benchmark
+	public void MillerRabin(Blackhole blackhole) throws Throwable
+	{
+		for (long number = first; number <= second; number++)
+		{
+			blackhole.consume((boolean)millerRabinIsPrime.invoke(millerRabin, number));
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SegmentedSieve
+	//
+	// Description: finds the primes in the range with PrimeSieve
+	//
+	// Parameters: None
+	//
+	// Returns: long array: the primes
+	//
+	// **************************************************************
+	@Benchmark
+	public long[] SegmentedSieve() throws Throwable
+	{
+		return (long[])sieveGetPrimes.invoke(sieve, (long)first, (long)second);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CachedPrimes
+	//
+	// Description: gets the primes in the range from a filled PrimeCache
+	//
+	// Parameters: None
+	//
+	// Returns: long array: the primes
+	//
+	// **************************************************************
+	@Benchmark
+	public long[] CachedPrimes() throws Throwable
+	{
+		return (long[])cacheGetPrimes.invoke(cache, (long)first, (long)second);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CachedCount
+	//
+	// Description: counts the primes in the range with a filled
+	//				PrimeCache, without building the list
+	//
+	// Parameters: None
+	//
+	// Returns: long: the number of primes
+	//
+	// **************************************************************
+	@Benchmark
+	public long CachedCount() throws Throwable
+	{
+		return (long)cacheCountPrimes.invoke(cache, (long)first, (long)second);
+	}
+}
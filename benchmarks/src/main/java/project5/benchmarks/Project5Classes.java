@@ -0,0 +1,119 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     Project5Classes.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Finds the Project 5 classes and methods for the
+//				   benchmarks. The project's classes are in the default
+//				   package, which can't be imported, and JMH needs its
+//				   benchmarks in a named package, so the benchmarks call
+//				   the project through method handles. A handle kept in
+//				   a static final field is inlined by the JIT like a
+//				   normal call.
+//
+//
+//******************************************************************************
+
+package project5.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+final class Project5Classes
+{
+	private static final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+	
+	
+	private Project5Classes()
+	{
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Find
+	//
+	// Description: finds a Project 5 class by name
+	//
+	// Parameters: String: name of the class
+	//
+	// Returns: Class: the class
+	//
+	// **************************************************************
+	static Class<?> Find(String className)
+	{
+		try
+		{
+			return Class.forName(className);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IllegalStateException("Project 5 class " + className + " is not on the class path", e);
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Constructor
+	//
+	// Description: finds a public constructor of a Project 5 class
+	//
+	// Parameters: String: name of the class
+	//			   Class array: the constructor's parameter types
+	//
+	// Returns: MethodHandle: makes a new object, typed as Object
+	//
+	// **************************************************************
+	static MethodHandle Constructor(String className, Class<?>... parameterTypes)
+	{
+		try
+		{
+			MethodHandle constructor = lookup.findConstructor(Find(className), MethodType.methodType(void.class, parameterTypes));
+			return constructor.asType(constructor.type().changeReturnType(Object.class));
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Project 5 class " + className + " has no such constructor", e);
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Method
+	//
+	// Description: finds a public method of a Project 5 class
+	//
+	// Parameters: String: name of the class
+	//			   String: name of the method
+	//			   Class: the method's return type
+	//			   Class array: the method's parameter types
+	//
+	// Returns: MethodHandle: calls the method, the object it is called
+	//			on is the first argument and is typed as Object
+	//
+	// **************************************************************
+	static MethodHandle Method(String className, String methodName, Class<?> returnType, Class<?>... parameterTypes)
+	{
+		try
+		{
+			MethodHandle method = lookup.findVirtual(Find(className), methodName, MethodType.methodType(returnType, parameterTypes));
+			return method.asType(method.type().changeParameterType(0, Object.class));
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Project 5 class " + className + " has no method " + methodName, e);
+		}
+	}
+}
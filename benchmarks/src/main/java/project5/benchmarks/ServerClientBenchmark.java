@@ -0,0 +1,152 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     ServerClientBenchmark.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Benchmarks the request handling of ServerClient without
+//				   a network client: ParseClientData parsing a request and
+//				   gathering its primes on the server's worker pool, and
+//				   PackageData building the reply, in text and in binary.
+//				   Replies are written to a stream that drops them.
+//
+//
+//******************************************************************************
+
+package project5.benchmarks;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServerClientBenchmark
+{
+	private static final Class<?> serverClass = Project5Classes.Find("Project5Server");
+	private static final MethodHandle newServer = Project5Classes.Constructor("Project5Server");
+	private static final MethodHandle setupWorkers = Project5Classes.Method("Project5Server", "SetupWorkers", void.class, String.class);
+	private static final MethodHandle closeServer = Project5Classes.Method("Project5Server", "CloseServer", void.class);
+	private static final MethodHandle newServerClient = Project5Classes.Constructor("ServerClient",
+			Socket.class, serverClass, OutputStream.class);
+	private static final MethodHandle handleInput = Project5Classes.Method("ServerClient", "HandleInput", CompletableFuture.class, String.class);
+	private static final MethodHandle parseClientData = Project5Classes.Method("ServerClient", "ParseClientData", CompletableFuture.class, String.class);
+	private static final MethodHandle packageData = Project5Classes.Method("ServerClient", "PackageData", void.class,
+			double.class, double.class, double.class, long[].class);
+	
+	// number of integers in the request's range, starting at 1
+	@Param({ "10000", "1000000" })
+	public int rangeSize;
+	
+	// reply format, text or binary
+	@Param({ "text", "binary" })
+	public String protocol;
+	
+	private Object server;
+	private Object serverClient;
+	private ServerSocket listener;
+	private Socket clientSide;
+	private Socket serverSide;
+	private String request;
+	private long[] primes;
+	
+	
+	@Setup(Level.Trial)
+	public void Setup() throws Throwable
+	{
+		// the server's workers and an in memory prime cache, no listening socket
+		server = newServer.invoke();
+		setupWorkers.invoke(server, (String)null);
+		
+		// ServerClient needs a connected socket for its messages,
+		// the replies themselves go to a stream that drops them
+		listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		clientSide = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+		serverSide = listener.accept();
+		serverClient = newServerClient.invoke(serverSide, server, OutputStream.nullOutputStream());
+		if (protocol.equals("binary"))
+		{
+			((CompletableFuture<?>)handleInput.invoke(serverClient, "binary")).join();
+		}
+		
+		request = "1," + rangeSize;
+		primes = (long[])((CompletableFuture<?>)parseClientData.invoke(serverClient, request)).join();
+	}
+	
+	
+	@TearDown(Level.Trial)
+	public void TearDown() throws Throwable
+	{
+		closeServer.invoke(server);
+		serverSide.close();
+		clientSide.close();
+		listener.close();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ParseClientData
+	//
+	// Description: parses a request and gathers its primes from the
+	//				server's prime cache on the worker pool
+	//
+	// Parameters: None
+	//
+	// Returns: long array: the primes
+	//
+	// **************************************************************
+	@Benchmark
+	public long[] ParseClientData() throws Throwable
+	{
+		return (long[])((CompletableFuture<?>)parseClientData.invoke(serverClient, request)).join();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: PackageData
+	//
+	// Description: builds and writes the reply for the request's primes
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Benchmark
+	public void PackageData() throws Throwable
+	{
+		packageData.invoke(serverClient, 1.0, 2.0, 3.0, primes);
+	}
+}
@@ -0,0 +1,138 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     StatisticsBenchmark.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Benchmarks finding the sum and standard deviation of a
+//				   list of primes: CalculationCallable's GetSum and
+//				   GetStDev over a list of Integers, against the single
+//				   pass PrimeStatistics over a long array.
+//
+//
+//******************************************************************************
+
+package project5.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBenchmark
+{
+	private static final MethodHandle newSieve = Project5Classes.Constructor("PrimeSieve");
+	private static final MethodHandle sieveGetPrimes = Project5Classes.Method("PrimeSieve", "GetPrimes", long[].class, long.class, long.class);
+	private static final MethodHandle newSumCalculation = Project5Classes.Constructor("CalculationCallable", ArrayList.class);
+	private static final MethodHandle newStDevCalculation = Project5Classes.Constructor("CalculationCallable", double.class, ArrayList.class);
+	private static final MethodHandle getSum = Project5Classes.Method("CalculationCallable", "GetSum", double.class);
+	private static final MethodHandle getStDev = Project5Classes.Method("CalculationCallable", "GetStDev", double.class);
+	private static final MethodHandle newStatistics = Project5Classes.Constructor("PrimeStatistics", long[].class, int.class, int.class);
+	private static final MethodHandle statisticsGetStDev = Project5Classes.Method("PrimeStatistics", "GetStDev", double.class);
+	
+	// number of integers the primes are taken from
+	@Param({ "100000", "10000000" })
+	public int rangeSize;
+	
+	private long[] primes;
+	private ArrayList<Integer> primeList;
+	private double mean;
+	
+	
+	@Setup(Level.Trial)
+	public void Setup() throws Throwable
+	{
+		primes = (long[])sieveGetPrimes.invoke(newSieve.invoke(), 1L, (long)rangeSize);
+		
+		primeList = new ArrayList<Integer>(primes.length);
+		long sum = 0;
+		for (int i = 0; i < primes.length; i++)
+		{
+			primeList.add((int)primes[i]);
+			sum += primes[i];
+		}
+		mean = (double)sum / primes.length;
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CalculationSum
+	//
+	// Description: CalculationCallable.GetSum over the boxed list
+	//
+	// Parameters: None
+	//
+	// Returns: double: the sum
+	//
+	// **************************************************************
+	@Benchmark
+	public double CalculationSum() throws Throwable
+	{
+		return (double)getSum.invoke(newSumCalculation.invoke(primeList));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: CalculationStDev
+	//
+	// Description: CalculationCallable.GetStDev over the boxed list,
+	//				the mean already known
+	//
+	// Parameters: None
+	//
+	// Returns: double: the standard deviation
+	//
+	// **************************************************************
+	@Benchmark
+	public double CalculationStDev() throws Throwable
+	{
+		return (double)getStDev.invoke(newStDevCalculation.invoke(mean, primeList));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SinglePassStatistics
+	//
+	// Description: PrimeStatistics over the long array, finds the count,
+	//				sum, mean and standard deviation in one pass
+	//
+	// Parameters: None
+	//
+	// Returns: double: the standard deviation
+	//
+	// **************************************************************
+	@Benchmark
+	public double SinglePassStatistics() throws Throwable
+	{
+		return (double)statisticsGetStDev.invoke(newStatistics.invoke(primes, 0, primes.length));
+	}
+}
@@ -0,0 +1,282 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     StatsIndexTest.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Tests that the server's statistics checkpoints grow 
+//				   past the first one and answer later requests, and 
+//				   that wide ranges only calculate the part past the 
+//				   checkpoints. Requests go through a ServerClient on a 
+//				   loopback socket like the benchmarks, and the replies 
+//				   are read back from the stream it writes them to. The 
+//				   checkpoints are added by the test itself, so nothing 
+//				   waits on the server's background tasks.
+//
+//
+//******************************************************************************
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StatsIndexTest
+{
+	private final int indexStep = 64; // checkpoints added per step by the test
+	private final long wideSecond = 20000000; // end of the wide ranges, several chunks wide
+	private final long widePrimeCount = 1270607; // primes below twenty million
+	
+	private Project5Server server;
+	private ServerSocket listener;
+	private Socket clientSide;
+	private Socket serverSide;
+	private ByteArrayOutputStream replies;
+	private ServerClient serverClient;
+	
+	
+	@BeforeEach
+	public void Setup() throws IOException
+	{
+		// the server's workers and an in memory prime cache, no listening socket
+		server = new Project5Server();
+		server.SetupWorkers(null);
+		
+		// ServerClient needs a connected socket for its messages,
+		// the replies themselves are kept to be read back
+		listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		clientSide = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+		serverSide = listener.accept();
+		replies = new ByteArrayOutputStream();
+		serverClient = new ServerClient(serverSide, server, replies);
+	}
+	
+	
+	@AfterEach
+	public void TearDown() throws IOException
+	{
+		server.CloseServer();
+		serverSide.close();
+		clientSide.close();
+		listener.close();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: SecondRequestUsesCheckpoints
+	//
+	// Description: a stats request past the first checkpoint is 
+	//				calculated by chunk tasks, and once the checkpoints 
+	//				cover it the same request again is answered from them 
+	//				without any chunk tasks
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Test
+	public void SecondRequestUsesCheckpoints() throws Exception
+	{
+		long second = 1000000;
+		PrimeStatsIndex statsIndex = server.GetStatsIndex();
+		LatencyHistogram computeLatency = server.GetMetrics().GetComputeLatency();
+		assertTrue(!statsIndex.IsCovered(second));
+		
+		ArrayList<String> first = Request("stats:1," + second);
+		assertEquals(1, computeLatency.GetCount());
+		
+		ExtendCheckpoints(second);
+		ArrayList<String> again = Request("stats:1," + second);
+		
+		// same answer, and no chunk tasks were run for it
+		AssertSameSummary(first, again);
+		assertEquals(1, computeLatency.GetCount());
+		assertEquals(78498, server.GetStatsIndex().GetStatistics(1, second).GetCount());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WideRangeUsesCheckpoints
+	//
+	// Description: a count of the primes below twenty million is 
+	//				calculated by chunk tasks once, then the count and the 
+	//				summary of the range are answered from the checkpoints
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Test
+	public void WideRangeUsesCheckpoints() throws Exception
+	{
+		LatencyHistogram computeLatency = server.GetMetrics().GetComputeLatency();
+		
+		assertEquals("=" + widePrimeCount, Request("count:1," + wideSecond).get(0));
+		assertEquals(1, computeLatency.GetCount());
+		
+		ExtendCheckpoints(wideSecond);
+		assertEquals("=" + widePrimeCount, Request("count:1," + wideSecond).get(0));
+		ArrayList<String> summary = Request("stats:1," + wideSecond);
+		assertEquals(1, summary.size());
+		assertTrue(summary.get(0).startsWith("="), summary.get(0));
+		assertEquals(1, computeLatency.GetCount());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WideRangeStartsFromCheckpoints
+	//
+	// Description: a wide range past the checkpoints gets its start 
+	//				from them. Every calculation thread is kept busy until 
+	//				the request's deadline has passed, so no chunk is done 
+	//				in time and the answer covers exactly the 
+	//				checkpointed integers.
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Test
+	public void WideRangeStartsFromCheckpoints() throws Exception
+	{
+		PrimeStatsIndex statsIndex = server.GetStatsIndex();
+		ExtendCheckpoints(1000000);
+		long covered = statsIndex.GetCoveredEnd();
+		
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch busy = new CountDownLatch(server.GetThreadCount());
+		for (int thread = 0; thread < server.GetThreadCount(); thread++)
+		{
+			server.QueueTaskExecution(new Object(), () -> 
+			{
+				busy.countDown();
+				release.await();
+				return null;
+			});
+		}
+		
+		ArrayList<String> reply;
+		try
+		{
+			busy.await();
+			reply = Request("deadline:1:count:1," + wideSecond);
+		}
+		finally
+		{
+			release.countDown();
+		}
+		
+		assertEquals(2, reply.size(), "expected a partial count: " + reply);
+		assertEquals("partial:" + covered, reply.get(0));
+		assertEquals("=" + statsIndex.GetStatistics(1, covered).GetCount(), reply.get(1));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: AssertSameSummary
+	//
+	// Description: checks that two summary replies give the same sum, 
+	//				mean and standard deviation. The checkpoints and the 
+	//				chunk tasks add the primes up in a different order, so 
+	//				the last digits of the mean and standard deviation 
+	//				can differ.
+	//
+	// Parameters: ArrayList: the first reply
+	//			   ArrayList: the second reply
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void AssertSameSummary(ArrayList<String> expected, ArrayList<String> actual)
+	{
+		assertEquals(1, expected.size(), "expected one summary: " + expected);
+		assertEquals(1, actual.size(), "expected one summary: " + actual);
+		
+		String[] expectedValues = expected.get(0).substring(1).split(",");
+		String[] actualValues = actual.get(0).substring(1).split(",");
+		assertEquals(expectedValues.length, actualValues.length);
+		for (int i = 0; i < expectedValues.length; i++)
+		{
+			double value = Double.parseDouble(expectedValues[i]);
+			assertEquals(value, Double.parseDouble(actualValues[i]), Math.abs(value) * 1e-9);
+		}
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ExtendCheckpoints
+	//
+	// Description: adds checkpoints on the test's thread until they 
+	//				cover an integer, the way the server's background 
+	//				tasks do a step at a time
+	//
+	// Parameters: long: the integer
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	private void ExtendCheckpoints(long second)
+	{
+		PrimeStatsIndex statsIndex = server.GetStatsIndex();
+		boolean covered = false;
+		for (long step = 0; step <= second / indexStep && !covered; step++)
+		{
+			covered = statsIndex.ExtendStep(second, indexStep);
+		}
+		assertTrue(covered, "checkpoints never reached " + second);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Request
+	//
+	// Description: sends the server a request and reads back its reply
+	//
+	// Parameters: String: the request
+	//
+	// Returns: ArrayList: the messages of the reply, in order
+	//
+	// **************************************************************
+	private ArrayList<String> Request(String request) throws IOException
+	{
+		replies.reset();
+		serverClient.HandleInput(request).join();
+		
+		ArrayList<String> messages = new ArrayList<String>();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(replies.toByteArray()));
+		while (in.available() > 0)
+		{
+			messages.add(in.readUTF());
+		}
+		return messages;
+	}
+}
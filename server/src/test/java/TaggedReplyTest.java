@@ -0,0 +1,188 @@
+//******************************************************************************
+//
+//  Developer:     Michael Franklin
+//
+//  Project #:     Project 5
+//
+//  File Name:     TaggedReplyTest.java
+//
+//  Course:        COSC 4301 - Modern Programming
+//
+//  Due Date:      03/13/2022
+//
+//  Instructor:    Fred Kumi
+//
+//  Description:   Tests that a pipelined request's tag and answer reach
+//				   the client's stream in one write on a socket with
+//				   TCP_NODELAY set, so the answer never waits for the
+//				   client to acknowledge the tag, and that pipelined
+//				   requests can't ask for answers too big to hold whole.
+//
+//
+//******************************************************************************
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TaggedReplyTest
+{
+	private Project5Server server;
+	private ServerSocket listener;
+	private Socket clientSide;
+	private Socket serverSide;
+	private ByteArrayOutputStream replies;
+	private int writes; // write calls made to replies
+	private ServerClient serverClient;
+	
+	
+	@BeforeEach
+	public void Setup() throws IOException
+	{
+		// the server's workers and an in memory prime cache, no listening socket
+		server = new Project5Server();
+		server.SetupWorkers(null);
+		
+		// ServerClient needs a connected socket for its messages, the
+		// replies are kept to be read back and each write is counted
+		listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		clientSide = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+		serverSide = listener.accept();
+		replies = new ByteArrayOutputStream()
+		{
+			@Override
+			public synchronized void write(byte[] data, int offset, int length)
+			{
+				writes++;
+				super.write(data, offset, length);
+			}
+			
+			@Override
+			public synchronized void write(int data)
+			{
+				writes++;
+				super.write(data);
+			}
+		};
+		serverClient = new ServerClient(serverSide, server, replies);
+	}
+	
+	
+	@AfterEach
+	public void TearDown() throws IOException
+	{
+		server.CloseServer();
+		serverSide.close();
+		clientSide.close();
+		listener.close();
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: TaggedReplyIsOneWrite
+	//
+	// Description: the tag and the whole answer of a pipelined request
+	//				are written with a single write call
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Test
+	public void TaggedReplyIsOneWrite() throws Exception
+	{
+		ArrayList<String> reply = Request("#t:1,100");
+		assertEquals(1, writes);
+		assertEquals("#t", reply.get(0));
+		assertEquals(5, reply.size(), "expected the tag, the answers and three packages of primes: " + reply);
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: WideTaggedListIsRejected
+	//
+	// Description: a pipelined request for the primes of a wide range
+	//				gets an error instead of an answer held whole, and
+	//				its count is still answered
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Test
+	public void WideTaggedListIsRejected() throws Exception
+	{
+		ArrayList<String> reply = Request("#w:1,100000000");
+		assertEquals(2, reply.size(), "expected an error: " + reply);
+		assertEquals("#w", reply.get(0));
+		assertTrue(reply.get(1).startsWith("xPipelined requests"), reply.get(1));
+		
+		assertEquals("=5761455", Request("#c:count:1,100000000").get(1));
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: ClientSocketHasNoDelay
+	//
+	// Description: a client handler turns off Nagle's algorithm on its
+	//				socket, so a reply's last packet isn't held back
+	//				waiting for the client to acknowledge the one before
+	//
+	// Parameters: None
+	//
+	// Returns: N/A
+	//
+	// **************************************************************
+	@Test
+	public void ClientSocketHasNoDelay() throws Exception
+	{
+		new ServerClient(serverSide, server).SetupClient();
+		assertTrue(serverSide.getTcpNoDelay());
+	}
+	
+	
+	// ***************************************************************
+	//
+	// Method: Request
+	//
+	// Description: sends the server a pipelined request and reads back
+	//				its reply once every pipelined request is answered
+	//
+	// Parameters: String: the request, with its tag
+	//
+	// Returns: ArrayList: the messages of the reply, in order
+	//
+	// **************************************************************
+	private ArrayList<String> Request(String request) throws IOException
+	{
+		replies.reset();
+		writes = 0;
+		serverClient.HandleRequest(request).join();
+		serverClient.WaitForPipelined().join();
+		
+		ArrayList<String> messages = new ArrayList<String>();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(replies.toByteArray()));
+		while (in.available() > 0)
+		{
+			messages.add(in.readUTF());
+		}
+		return messages;
+	}
+}